@@ -0,0 +1,208 @@
+package com.palyaeva;
+
+import com.palyaeva.benchmark.PersonDataGenerator;
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Person;
+import com.palyaeva.serialization.PersonXMLStreamSerializer;
+import com.palyaeva.store.DepartmentHeadcount;
+import com.palyaeva.store.ManagerSpan;
+import com.palyaeva.store.NotebookStore;
+import com.palyaeva.store.PersonQuery;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.PersonValidatorImpl;
+import com.palyaeva.validation.ValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search and sorting of notes in {@link NotebookSystem} and its {@link NotebookStore}.
+ * Benchmark is in the package of NotebookSystem, because search methods are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotebookSystemBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private NotebookSystem notebookSystem;
+    private NotebookStore store;
+    private NotebookStore memoryStore;
+    private List<Person> persons;
+    private String managerName;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("notebook-bench");
+        Path dataFile = directory.resolve("persons.xml");
+        Files.copy(Paths.get(PersonDataGenerator.xmlFile(size)), dataFile);
+
+        PersonValidator validator = new PersonValidatorImpl();
+        store = new NotebookStore(dataFile.toString(), new PersonXMLStreamSerializer(validator), validator);
+        notebookSystem = new NotebookSystem(store, validator);
+        notebookSystem.init();
+        // store is opened lazily, notes of xml file are loaded on the first access
+        store.size();
+
+        persons = new PersonXMLStreamSerializer(validator).deserialize(dataFile.toString());
+        managerName = ((Employee) persons.get(persons.size() - 1)).getManager();
+        // store without journal, so changing notes doesn't measure writing to disk
+        memoryStore = new NotebookStore(validator);
+        for (Person person : persons) {
+            try {
+                memoryStore.add(person);
+            } catch (ValidationException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Person> findByFirstName() {
+        return notebookSystem.findByFirstName("Serg");
+    }
+
+    @Benchmark
+    public List<Person> findByLastName() {
+        return notebookSystem.findByLastName("sokolov");
+    }
+
+    @Benchmark
+    public List<Person> findByShortLastName() {
+        return notebookSystem.findByLastName("ov");
+    }
+
+    @Benchmark
+    public List<Person> findByPhoneNumber() {
+        return notebookSystem.findByPhoneNumber("89000000500");
+    }
+
+    /**
+     * Compound query: trigrams of last name, year buckets and managers of department are intersected as bitmaps
+     */
+    @Benchmark
+    public List<Person> findByQuery() {
+        return store.find(new PersonQuery().lastNameContains("sokolov").bornBetween(1970, 1990).department("IT"));
+    }
+
+    /**
+     * Last name with a typo: words within edit distance are found by BK-tree, sounding alike by phonetic key
+     */
+    @Benchmark
+    public List<Person> findBySimilarLastName() {
+        return store.findBySimilarLastName("Sakolov");
+    }
+
+    /**
+     * Similar last name narrowed by years of birth and department
+     */
+    @Benchmark
+    public List<Person> findBySimilarNameQuery() {
+        return store.find(new PersonQuery().lastNameSimilarTo("Sakolov").bornBetween(1970, 1990).department("IT"));
+    }
+
+    /**
+     * Short last name has no index, so it is checked only for employees of the manager
+     */
+    @Benchmark
+    public List<Person> findEmployeesByQuery() {
+        return store.find(new PersonQuery().managedBy(managerName).lastNameContains("ov"));
+    }
+
+    /**
+     * Counts are kept by the store, so report doesn't depend on number of notes
+     */
+    @Benchmark
+    public List<DepartmentHeadcount> headcountByDepartment() {
+        return store.headcountByDepartment();
+    }
+
+    @Benchmark
+    public SortedMap<Integer, Integer> countByBirthYear() {
+        return store.countByBirthYear();
+    }
+
+    @Benchmark
+    public List<ManagerSpan> spanOfControl() {
+        return store.spanOfControl(PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Person> sortByLastNameFirstPage() {
+        return store.sortedByLastName(0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Person> sortByBirthYearMiddlePage() {
+        return store.sortedByBirthYear(size / 2, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Person getMiddleNote() {
+        return store.get(size / 2);
+    }
+
+    /**
+     * Deleted employee is added again to the end, so the store keeps its size.
+     * Managers are skipped, because manager with employees is not deleted
+     */
+    @Benchmark
+    public void deleteAndAddNote() throws ValidationException {
+        Person person = memoryStore.get(size / 2);
+        for (int number = size / 2 + 1; !(person instanceof Employee); number++) {
+            person = memoryStore.get(number);
+        }
+        memoryStore.remove(person.getId());
+        memoryStore.add(person);
+    }
+
+    /**
+     * All managers of a department are moved to a new department and back
+     */
+    @Benchmark
+    public int moveDepartmentAndBack() throws ValidationException {
+        return memoryStore.moveDepartment("Legal", "Compliance") + memoryStore.moveDepartment("Compliance", "Legal");
+    }
+
+    /**
+     * Sorting of the whole list, as it was done before sorted views
+     */
+    @Benchmark
+    public List<Person> sortListByLastName() {
+        List<Person> sorted = new ArrayList<>(persons);
+        sorted.sort((worker1, worker2) -> worker1.getLastName().compareToIgnoreCase(worker2.getLastName()));
+        return sorted;
+    }
+
+    @Benchmark
+    public List<Person> sortListByBirthYear() {
+        List<Person> sorted = new ArrayList<>(persons);
+        sorted.sort(Comparator.comparingInt(Person::getBirthYear));
+        return sorted;
+    }
+}
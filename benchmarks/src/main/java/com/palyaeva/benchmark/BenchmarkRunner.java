@@ -0,0 +1,34 @@
+package com.palyaeva.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks and writes results to a json file,
+ * so throughput and allocation rate can be tracked between runs.
+ * Allocation rate is measured by GC profiler ("gc.alloc.rate.norm" is bytes per operation).
+ * <p>
+ * Usage: {@code java -jar benchmarks.jar [benchmark name regexp] [result file]}
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 1 ? args[1] : DEFAULT_RESULT_FILE);
+        if (args.length > 0) {
+            options.include(args[0]);
+        }
+        new Runner(options.build()).run();
+    }
+}
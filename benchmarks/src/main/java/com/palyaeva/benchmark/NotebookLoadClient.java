@@ -0,0 +1,153 @@
+package com.palyaeva.benchmark;
+
+import com.palyaeva.entity.Person;
+import com.palyaeva.server.NotebookServer;
+import com.palyaeva.store.NotebookStore;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.PersonValidatorImpl;
+import com.palyaeva.validation.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of {@link NotebookServer}: many concurrent clients search notes by phone number.
+ * Every client runs in its own virtual thread when JVM supports them.
+ * Prints throughput and percentiles of latency.
+ * <p>
+ * Without url the client starts an embedded server on a free port with generated notes.
+ * <p>
+ * Usage: {@code NotebookLoadClient [clients] [requests per client] [persons] [url]}
+ */
+public final class NotebookLoadClient {
+
+    private static final int WARMUP_REQUESTS = 20;
+
+    private final String url;
+    private final List<Person> persons;
+    private final int clients;
+    private final int requests;
+
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private NotebookLoadClient(String url, List<Person> persons, int clients, int requests) {
+        this.url = url;
+        this.persons = persons;
+        this.clients = clients;
+        this.requests = requests;
+    }
+
+    private void run() throws Exception {
+        long[][] latencies = new long[clients][requests];
+        ExecutorService executor = NotebookServer.newRequestExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            long[] clientLatencies = latencies[i];
+            Random random = new Random(i);
+            executor.execute(() -> {
+                try {
+                    for (int j = 0; j < WARMUP_REQUESTS; j++) {
+                        search(random);
+                    }
+                    start.await();
+                    for (int j = 0; j < requests; j++) {
+                        long begin = System.nanoTime();
+                        search(random);
+                        clientLatencies[j] = System.nanoTime() - begin;
+                    }
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finish.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        finish.await();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        long[] all = new long[clients * requests];
+        for (int i = 0; i < clients; i++) {
+            System.arraycopy(latencies[i], 0, all, i * requests, requests);
+        }
+        Arrays.sort(all);
+        System.out.println("Clients: " + clients + ", requests: " + all.length + ", errors: " + errors.get());
+        System.out.printf("Throughput: %.0f requests/s%n", all.length / (elapsed / 1e9));
+        System.out.printf("Latency, ms: p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f%n",
+                percentile(all, 0.5), percentile(all, 0.9), percentile(all, 0.99),
+                percentile(all, 0.999), all[all.length - 1] / 1e6);
+    }
+
+    private void search(Random random) {
+        String phoneNumber = persons.get(random.nextInt(persons.size())).getPhoneNumber();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url + "/search?phoneNumber="
+                    + URLEncoder.encode(phoneNumber, "UTF-8")).openConnection();
+            boolean isOk = connection.getResponseCode() == 200;
+            if (!isOk) {
+                errors.incrementAndGet();
+            }
+            // body is read to the end, so the connection is kept alive and reused
+            try (InputStream stream = isOk ? connection.getInputStream() : connection.getErrorStream()) {
+                byte[] chunk = new byte[4096];
+                while (stream.read(chunk) > 0) {
+                    continue;
+                }
+            }
+        } catch (IOException exception) {
+            errors.incrementAndGet();
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        // every client keeps its own connection alive, by default only 5 idle connections are kept
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+        List<Person> persons = PersonDataGenerator.generate(size);
+        if (args.length > 3) {
+            new NotebookLoadClient(args[3], persons, clients, requests).run();
+            return;
+        }
+
+        PersonValidator validator = new PersonValidatorImpl();
+        NotebookStore store = new NotebookStore(validator);
+        for (Person person : persons) {
+            try {
+                store.add(person);
+            } catch (ValidationException exception) {
+                System.err.println(exception.getMessage());
+            }
+        }
+        NotebookServer server = new NotebookServer(store, validator, 0);
+        server.start();
+        try {
+            new NotebookLoadClient("http://localhost:" + server.getPort(), new ArrayList<>(persons),
+                    clients, requests).run();
+        } finally {
+            server.stop();
+        }
+    }
+}
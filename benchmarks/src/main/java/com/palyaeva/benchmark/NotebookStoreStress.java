@@ -0,0 +1,285 @@
+package com.palyaeva.benchmark;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.serialization.PersonXMLSerializer;
+import com.palyaeva.serialization.PersonXMLStreamSerializer;
+import com.palyaeva.store.NotebookStore;
+import com.palyaeva.store.ReportsPolicy;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.PersonValidatorImpl;
+import com.palyaeva.validation.ValidationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress check of {@link NotebookStore} with many concurrent readers and writers.
+ * Writers add managers and employees and delete employees which they added,
+ * from time to time they delete a manager together with its employees or move its employees to another manager,
+ * readers search, page through sorted views and take snapshots.
+ * Every snapshot should contain managers of all its employees,
+ * and after the run the store, its indexes and the reloaded data file should agree.
+ * <p>
+ * Usage: {@code NotebookStoreStress [readers] [writers] [seconds] [initial persons]}
+ */
+public final class NotebookStoreStress {
+
+    private final int readers;
+    private final int writers;
+    private final long seconds;
+    private final int initialSize;
+
+    private final PersonValidator validator = new PersonValidatorImpl();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong violations = new AtomicLong();
+
+    private NotebookStore store;
+
+    private NotebookStoreStress(int readers, int writers, long seconds, int initialSize) {
+        this.readers = readers;
+        this.writers = writers;
+        this.seconds = seconds;
+        this.initialSize = initialSize;
+    }
+
+    private boolean run() throws Exception {
+        Path directory = Files.createTempDirectory("notebook-stress");
+        String dataFile = directory.resolve("persons.xml").toString();
+        new PersonXMLSerializer(validator).serialize(PersonDataGenerator.generate(initialSize), dataFile);
+        store = new NotebookStore(dataFile, new PersonXMLStreamSerializer(validator), validator);
+        store.load();
+
+        ExecutorService executor = Executors.newFixedThreadPool(readers + writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> writerResults = new ArrayList<>();
+        List<Future<?>> readerResults = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            int writer = i;
+            writerResults.add(executor.submit(() -> write(writer, start)));
+        }
+        for (int i = 0; i < readers; i++) {
+            int reader = i;
+            readerResults.add(executor.submit(() -> read(reader, start)));
+        }
+        start.countDown();
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+
+        int added = 0;
+        for (Future<Integer> result : writerResults) {
+            added += result.get();
+        }
+        for (Future<?> result : readerResults) {
+            result.get();
+        }
+        executor.shutdown();
+
+        List<Person> snapshot = store.snapshot();
+        check(snapshot.size() == initialSize + added, "size " + snapshot.size()
+                + " differs from expected " + (initialSize + added));
+        check(snapshot.size() == store.size(), "snapshot is outdated");
+        checkManagers(snapshot);
+        checkIndexes(snapshot);
+        store.close();
+
+        NotebookStore reloaded = new NotebookStore(dataFile, new PersonXMLStreamSerializer(validator), validator);
+        reloaded.load();
+        check(reloaded.size() == snapshot.size(), "reloaded store has " + reloaded.size()
+                + " notes instead of " + snapshot.size());
+        reloaded.close();
+
+        System.out.println("Readers: " + readers + ", writers: " + writers + ", seconds: " + seconds);
+        System.out.println("Reads: " + reads.get() + " (" + reads.get() / seconds + "/s), "
+                + "writes: " + writes.get() + " (" + writes.get() / seconds + "/s)");
+        System.out.println("Notes: " + snapshot.size() + ", violations: " + violations.get());
+        return violations.get() == 0;
+    }
+
+    /*
+     * Returns number of notes which were added and not deleted
+     */
+    private int write(int writer, CountDownLatch start) throws InterruptedException, ValidationException {
+        Random random = new Random(writer);
+        List<Manager> managers = new ArrayList<>();
+        List<Person> added = new ArrayList<>();
+        start.await();
+        for (int i = 0; running.get(); i++) {
+            String phoneNumber = "8" + (7_000_000_000L + writer * 100_000_000L + i);
+            int birthYear = 1900 + random.nextInt(103);
+            if (managers.isEmpty() || random.nextInt(10) == 0) {
+                Manager manager = new Manager("Writer", lastName(writer, i), birthYear, phoneNumber, "Stress");
+                Person stored = store.add(manager);
+                managers.add((Manager) stored);
+                added.add(stored);
+            } else if (random.nextInt(100) == 0 && managers.size() > 1) {
+                removeManager(random, managers, added);
+            } else if (random.nextInt(3) == 0 && added.size() > managers.size()) {
+                Person person = added.get(random.nextInt(added.size()));
+                if (person instanceof Employee) {
+                    Person deleted = store.remove(person.getId());
+                    check(deleted != null && deleted.getLastName().equals(person.getLastName()),
+                            "added employee was not found by id");
+                    added.remove(person);
+                }
+            } else if (random.nextInt(50) == 0) {
+                removeEmployees(added);
+            } else {
+                Manager manager = managers.get(random.nextInt(managers.size()));
+                Employee employee = new Employee("Worker", lastName(writer, i), birthYear, phoneNumber,
+                        manager.getFirstName() + " " + manager.getLastName());
+                added.add(store.add(employee));
+            }
+            writes.incrementAndGet();
+        }
+        return added.size();
+    }
+
+    /*
+     * Deletes one of managers added by the writer except the first one,
+     * its employees are deleted too or are moved to the first manager
+     */
+    private void removeManager(Random random, List<Manager> managers, List<Person> added) {
+        Manager manager = managers.remove(1 + random.nextInt(managers.size() - 1));
+        Manager first = managers.get(0);
+        String name = manager.getFirstName() + " " + manager.getLastName();
+        long reports = added.stream()
+                .filter(person -> person instanceof Employee && ((Employee) person).getManager().equals(name))
+                .count();
+        check(store.countReports(manager.getId()) == reports, "employees of manager are not counted");
+        if (reports > 0) {
+            try {
+                store.remove(manager.getId());
+                check(false, "manager with employees was deleted");
+            } catch (ValidationException exception) {
+                // expected, manager with employees is blocked by default
+            }
+        }
+        boolean isCascade = random.nextBoolean();
+        check(store.remove(manager.getId(), isCascade ? ReportsPolicy.CASCADE : ReportsPolicy.REASSIGN,
+                first.getId()) != null, "added manager was not found by id");
+        added.removeIf(person -> person.getId() == manager.getId());
+        String firstName = first.getFirstName() + " " + first.getLastName();
+        for (int i = added.size() - 1; i >= 0; i--) {
+            Person person = added.get(i);
+            if (person instanceof Employee && ((Employee) person).getManager().equals(name)) {
+                if (isCascade) {
+                    added.remove(i);
+                } else {
+                    added.set(i, new Employee(person.getId(), person.getFirstName(), person.getLastName(),
+                            person.getBirthYear(), person.getPhoneNumber(), firstName));
+                    check(store.getById(person.getId()) instanceof Employee && ((Employee) store
+                            .getById(person.getId())).getManager().equals(firstName), "employee was not moved");
+                }
+            }
+        }
+    }
+
+    /*
+     * Deletes all employees added by the writer in one call
+     */
+    private void removeEmployees(List<Person> added) {
+        long[] ids = added.stream().filter(person -> person instanceof Employee).mapToLong(Person::getId).toArray();
+        check(store.removeAll(ids) == ids.length, "not all added employees were deleted");
+        added.removeIf(person -> person instanceof Employee);
+    }
+
+    private Void read(int reader, CountDownLatch start) throws InterruptedException {
+        Random random = new Random(-reader - 1);
+        start.await();
+        while (running.get()) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    store.findByLastName("ov");
+                    break;
+                case 1:
+                    for (Person person : store.findByFirstName("Writer")) {
+                        check(person instanceof Manager, "employee is found by manager's first name");
+                    }
+                    break;
+                case 2:
+                    store.sortedByLastName(random.nextInt(store.size() + 1), 20);
+                    break;
+                case 3:
+                    store.sortedByBirthYear(random.nextInt(store.size() + 1), 20);
+                    break;
+                default:
+                    checkManagers(store.snapshot());
+                    break;
+            }
+            reads.incrementAndGet();
+        }
+        return null;
+    }
+
+    private void checkManagers(List<Person> snapshot) {
+        Set<String> managers = new HashSet<>();
+        for (Person person : snapshot) {
+            if (person instanceof Manager) {
+                managers.add(person.getFirstName() + " " + person.getLastName());
+            }
+        }
+        for (Person person : snapshot) {
+            if (person instanceof Employee) {
+                check(managers.contains(((Employee) person).getManager()),
+                        "manager of " + person.getLastName() + " is not found");
+            }
+        }
+    }
+
+    private void checkIndexes(List<Person> snapshot) {
+        check(store.sortedByLastName(0, Integer.MAX_VALUE).size() == snapshot.size(), "last name view is broken");
+        check(store.sortedByBirthYear(0, Integer.MAX_VALUE).size() == snapshot.size(), "birth year view is broken");
+        IdentityHashMap<Person, Boolean> found = new IdentityHashMap<>();
+        for (Person person : snapshot) {
+            for (Person namesake : store.findByPhoneNumber(person.getPhoneNumber())) {
+                found.put(namesake, Boolean.TRUE);
+            }
+        }
+        check(found.size() == snapshot.size(), "phone index is broken");
+    }
+
+    private void check(boolean condition, String message) {
+        if (!condition && violations.incrementAndGet() <= 10) {
+            System.err.println("Violation: " + message);
+        }
+    }
+
+    /*
+     * Letters only, so names pass validation after reloading
+     */
+    private static String lastName(int writer, int index) {
+        StringBuilder name = new StringBuilder("S");
+        name.append((char) ('a' + writer % 26));
+        for (int rest = index; rest > 0 || name.length() < 3; rest /= 26) {
+            name.append((char) ('a' + rest % 26));
+        }
+        return name.length() > 11 ? name.substring(0, 11) : name.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int initialSize = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        if (!new NotebookStoreStress(readers, writers, seconds, initialSize).run()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.palyaeva.benchmark;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.serialization.PersonXMLSerializer;
+import com.palyaeva.validation.PersonValidatorImpl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic notebooks for benchmarks.
+ * Data is the same for the same size, so results of different runs can be compared.
+ * Every 20th person is a manager, employees are assigned to random managers.
+ * <p>
+ * Usage: {@code PersonDataGenerator <number of persons> <file>}
+ */
+public final class PersonDataGenerator {
+
+    private static final long SEED = 20181018L;
+
+    private static final int MANAGERS_RATIO = 20;
+
+    private static final String[] FIRST_NAMES = {"Ivan", "Petr", "Sidor", "Oleg", "Pavel", "Anna", "Maria",
+            "Olga", "Elena", "Dmitry", "Sergey", "Andrey", "Natalia", "Irina", "Alexey", "Nikolay"};
+
+    private static final String[] LAST_NAME_ROOTS = {"Ivan", "Petr", "Sidor", "Smirn", "Kuznets", "Pop",
+            "Volk", "Sokol", "Lebed", "Kozl", "Novik", "Morozk", "Egor", "Pavl", "Orl", "Makar"};
+
+    private static final String[] LAST_NAME_ENDINGS = {"ov", "ova", "in", "ina", "ev", "eva"};
+
+    private static final String[] DEPARTMENTS = {"IT", "Sales", "HR", "Finance", "Legal", "Support"};
+
+    private PersonDataGenerator() {
+    }
+
+    /**
+     * @param count number of persons
+     * @return generated persons, managers and employees are mixed
+     */
+    public static List<Person> generate(int count) {
+        Random random = new Random(SEED);
+        List<Person> persons = new ArrayList<>(count);
+        List<Manager> managers = new ArrayList<>(count / MANAGERS_RATIO + 1);
+        for (int i = 0; i < count; i++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAME_ROOTS[random.nextInt(LAST_NAME_ROOTS.length)]
+                    + LAST_NAME_ENDINGS[random.nextInt(LAST_NAME_ENDINGS.length)];
+            int birthYear = 1900 + random.nextInt(103);
+            String phoneNumber = phoneNumber(i, random);
+            if (i % MANAGERS_RATIO == 0) {
+                Manager manager = new Manager(firstName, lastName, birthYear, phoneNumber,
+                        DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+                managers.add(manager);
+                persons.add(manager);
+            } else {
+                Manager manager = managers.get(random.nextInt(managers.size()));
+                persons.add(new Employee(firstName, lastName, birthYear, phoneNumber,
+                        manager.getFirstName() + " " + manager.getLastName()));
+            }
+        }
+        return persons;
+    }
+
+    /**
+     * Returns xml file with given number of persons, file is generated only once
+     *
+     * @param count number of persons
+     * @return path to file in temporary directory
+     */
+    public static String xmlFile(int count) {
+        File file = new File(System.getProperty("java.io.tmpdir"),
+                "employees-notebook-bench" + File.separator + "persons-" + count + ".xml");
+        if (!file.exists()) {
+            new PersonXMLSerializer(new PersonValidatorImpl()).serialize(generate(count), file.getPath());
+        }
+        return file.getPath();
+    }
+
+    /*
+     * Unique numbers in all three formats: +7, 7 and 8
+     */
+    private static String phoneNumber(int index, Random random) {
+        String digits = String.valueOf(9_000_000_000L + index);
+        switch (random.nextInt(3)) {
+            case 0:
+                return "+7" + digits;
+            case 1:
+                return "7" + digits;
+            default:
+                return "8" + digits;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: PersonDataGenerator <number of persons> <file>");
+            return;
+        }
+        new PersonXMLSerializer(new PersonValidatorImpl()).serialize(generate(Integer.parseInt(args[0])), args[1]);
+    }
+}
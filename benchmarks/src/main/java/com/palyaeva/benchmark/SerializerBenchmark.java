@@ -0,0 +1,111 @@
+package com.palyaeva.benchmark;
+
+import com.palyaeva.entity.Person;
+import com.palyaeva.serialization.PersonBinarySerializer;
+import com.palyaeva.serialization.PersonRecordFile;
+import com.palyaeva.serialization.PersonXMLSerializer;
+import com.palyaeva.serialization.PersonXMLStreamSerializer;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.PersonValidatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading of notebooks in xml and binary formats
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final PersonValidator validator = new PersonValidatorImpl();
+
+    private List<Person> persons;
+    private String xmlFile;
+    private String binaryFile;
+    private String outputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        xmlFile = PersonDataGenerator.xmlFile(size);
+        persons = new PersonXMLStreamSerializer(validator).deserialize(xmlFile);
+        // generated file has no ids, they are given as the store gives them when it loads notes
+        for (int i = 0; i < persons.size(); i++) {
+            persons.set(i, persons.get(i).withId(i + 1));
+        }
+
+        File binary = File.createTempFile("persons-" + size, ".bin");
+        binary.deleteOnExit();
+        binaryFile = binary.getPath();
+        new PersonBinarySerializer(validator).serialize(persons, binaryFile);
+
+        File output = File.createTempFile("persons-output", ".xml");
+        output.deleteOnExit();
+        outputFile = output.getPath();
+    }
+
+    @Benchmark
+    public void serializeXml() {
+        new PersonXMLSerializer(validator).serialize(persons, outputFile);
+    }
+
+    @Benchmark
+    public void serializeBinary() {
+        new PersonBinarySerializer(validator).serialize(persons, outputFile);
+    }
+
+    @Benchmark
+    public List<Person> deserializeXml() {
+        return new PersonXMLSerializer(validator).deserialize(xmlFile);
+    }
+
+    @Benchmark
+    public List<Person> deserializeXmlStream() {
+        return new PersonXMLStreamSerializer(validator).deserialize(xmlFile);
+    }
+
+    @Benchmark
+    public List<Person> deserializeXmlStreamBulk() {
+        return new PersonXMLStreamSerializer(validator, ForkJoinPool.commonPool()).deserialize(xmlFile);
+    }
+
+    @Benchmark
+    public List<Person> deserializeBinary() {
+        return new PersonBinarySerializer(validator).deserialize(binaryFile);
+    }
+
+    /**
+     * Lazy startup: only header of binary file is read, then records of the first page are read and checked
+     */
+    @Benchmark
+    public Person openBinaryAndReadFirstPage() {
+        Person last = null;
+        try (PersonRecordFile file = new PersonBinarySerializer(validator).open(binaryFile, 1024)) {
+            for (int number = 0; number < 20; number++) {
+                last = file.get(number);
+            }
+        }
+        return last;
+    }
+}
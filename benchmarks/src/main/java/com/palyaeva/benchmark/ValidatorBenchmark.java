@@ -0,0 +1,112 @@
+package com.palyaeva.benchmark;
+
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerDirectory;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.PersonValidatorImpl;
+import com.palyaeva.validation.ValidationError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every method of {@link PersonValidatorImpl} on valid and invalid values
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private static final int NOTEBOOK_SIZE = 10_000;
+
+    private final PersonValidator validator = new PersonValidatorImpl();
+
+    private List<Person> persons;
+    private ManagerDirectory managers;
+    private String lastManager;
+
+    private String name = "Alexandra";
+    private String invalidName = "Alexandra1";
+    private String birthYear = "1987";
+    private String invalidBirthYear = "19a7";
+    private String phoneNumber = "+79991234567";
+    private String invalidPhoneNumber = "+89991234567";
+    private String department = "Finance";
+    private String invalidDepartment = "Finance 1";
+
+    @Setup
+    public void setUp() {
+        persons = PersonDataGenerator.generate(NOTEBOOK_SIZE);
+        managers = ManagerDirectory.of(persons);
+        // the last manager is the worst case for scanning of the list
+        for (Person person : persons) {
+            if (person instanceof Manager) {
+                lastManager = person.getFirstName() + " " + person.getLastName();
+            }
+        }
+    }
+
+    @Benchmark
+    public void validateName() {
+        validator.validateName(name, "First name");
+    }
+
+    @Benchmark
+    public ValidationError checkInvalidName() {
+        return validator.checkName(invalidName);
+    }
+
+    @Benchmark
+    public void validateBirthYear() {
+        validator.validateBirthYear(birthYear);
+    }
+
+    @Benchmark
+    public ValidationError checkInvalidBirthYear() {
+        return validator.checkBirthYear(invalidBirthYear);
+    }
+
+    @Benchmark
+    public void validatePhoneNumber() {
+        validator.validatePhoneNumber(phoneNumber);
+    }
+
+    @Benchmark
+    public ValidationError checkInvalidPhoneNumber() {
+        return validator.checkPhoneNumber(invalidPhoneNumber);
+    }
+
+    @Benchmark
+    public void validateDepartment() {
+        validator.validateDepartment(department);
+    }
+
+    @Benchmark
+    public ValidationError checkInvalidDepartment() {
+        return validator.checkDepartment(invalidDepartment);
+    }
+
+    @Benchmark
+    public void validateManagerInDirectory() {
+        validator.validateManager(lastManager, managers);
+    }
+
+    @Benchmark
+    public void validateManagerInList() {
+        validator.validateManager(lastManager, persons);
+    }
+}
@@ -1,33 +1,168 @@
 package com.palyaeva;
 
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.serialization.PersonBinarySerializer;
+import com.palyaeva.serialization.PersonExporter;
+import com.palyaeva.serialization.PersonFormatConverter;
+import com.palyaeva.serialization.PersonImporter;
 import com.palyaeva.serialization.PersonSerializer;
-import com.palyaeva.serialization.PersonXMLSerializer;
+import com.palyaeva.server.NotebookServer;
+import com.palyaeva.store.NotebookStore;
 import com.palyaeva.validation.PersonValidator;
 import com.palyaeva.validation.PersonValidatorImpl;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Main class for running application.
  * Application is a notebook for storing information
  * about employees and managers and make operations with it.
+ * <p>
+ * Without arguments application runs console menu. Other modes are chosen by arguments:
+ * <ul>
+ * <li>{@code serve [port]} - runs HTTP server. It accepts connections only from this host,
+ * other address to listen on is given by {@code -Dnotebook.server.host}, for example 0.0.0.0 for all interfaces</li>
+ * <li>{@code import <file>} - adds notes from CSV or NDJSON file, prints report and saves data file</li>
+ * <li>{@code export <file>} - saves all notes to CSV or NDJSON file</li>
+ * </ul>
+ * Data file is binary {@code data/persons.bin}, so console shows pages of notes before they are loaded.
+ * Notebook which was kept in {@code data/persons.xml} is converted to it on the first start,
+ * and xml file is kept as a copy. Other file is given by {@code -Dnotebook.data.file},
+ * format of data file is chosen by its extension.
+ * <p>
+ * Built-in metrics are turned on by {@code -Dnotebook.metrics=true}, see {@link Metrics}.
  *
  * @see NotebookSystem
+ * @see NotebookServer
  */
 public class Application {
     /*
-     * Data file is "person.xml" in folder "data"
+     * Data file is "persons.bin" in folder "data", other file is given by -Dnotebook.data.file
      */
     private static final String FILE_PATH = System.getProperty("user.dir") +
+            File.separator +
+            "data" +
+            File.separator +
+            "persons.bin";
+
+    /*
+     * Data file of previous versions
+     */
+    private static final String XML_FILE_PATH = System.getProperty("user.dir") +
             File.separator +
             "data" +
             File.separator +
             "persons.xml";
 
+    private static final int MAX_PORT = 65535;
+
     public static void main(String[] args) {
+        Metrics.expose();
         PersonValidator validator = new PersonValidatorImpl();
-        PersonSerializer serializer = new PersonXMLSerializer(validator);
-        NotebookSystem notebookSystem = new NotebookSystem(FILE_PATH, serializer, validator);
+        String filePath = dataFilePath(validator);
+        PersonSerializer serializer = PersonFormatConverter.serializerFor(filePath, validator);
+        NotebookStore store = new NotebookStore(filePath, serializer, validator);
+        if (args.length > 0 && args[0].equals("serve")) {
+            int port = args.length == 1 ? NotebookServer.DEFAULT_PORT : args.length == 2 ? parsePort(args[1]) : -1;
+            if (port < 0) {
+                System.err.println("Usage: serve [port]");
+                return;
+            }
+            serve(store, validator, port);
+            return;
+        }
+        if (args.length > 0 && (args[0].equals("import") || args[0].equals("export"))) {
+            if (args.length != 2 || !PersonImporter.isSupported(args[1])) {
+                System.err.println("Usage: " + args[0] + " <file.csv|file.ndjson|file.jsonl>");
+                return;
+            }
+            store.load();
+            try {
+                if (args[0].equals("import")) {
+                    new PersonImporter(validator, ForkJoinPool.commonPool())
+                            .importFile(args[1], store::addAll)
+                            .print(System.out);
+                } else {
+                    int count = PersonExporter.export(args[1], store::page);
+                    if (count >= 0) {
+                        System.out.println(count + " notes were exported");
+                    }
+                }
+            } finally {
+                store.flush();
+                store.close();
+            }
+            return;
+        }
+        NotebookSystem notebookSystem = new NotebookSystem(store, validator);
         notebookSystem.run();
     }
+
+    /*
+     * Server works until the application is stopped
+     */
+    private static void serve(NotebookStore store, PersonValidator validator, int port) {
+        store.load();
+        NotebookServer server;
+        try {
+            String host = System.getProperty("notebook.server.host");
+            server = host == null
+                    ? new NotebookServer(store, validator, port)
+                    : new NotebookServer(store, validator, InetAddress.getByName(host), port);
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while starting server: " + exception.getMessage());
+            store.close();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            store.flush();
+            store.close();
+        }));
+        server.start();
+        System.out.println("Notebook server is listening on " + server.getAddress());
+    }
+
+    /*
+     * Notebook which is kept in xml file is converted to binary file once, together with changes of its journal.
+     * Xml file is used if it was not converted
+     */
+    private static String dataFilePath(PersonValidator validator) {
+        String filePath = System.getProperty("notebook.data.file");
+        if (filePath != null) {
+            return filePath;
+        }
+        if (new File(FILE_PATH).exists() || !new File(XML_FILE_PATH).exists()) {
+            return FILE_PATH;
+        }
+        NotebookStore xmlStore = new NotebookStore(XML_FILE_PATH,
+                PersonFormatConverter.serializerFor(XML_FILE_PATH, validator), validator);
+        xmlStore.load();
+        try {
+            new PersonBinarySerializer(validator).serialize(xmlStore.snapshot(), FILE_PATH);
+        } finally {
+            xmlStore.close();
+        }
+        if (!new File(FILE_PATH).exists()) {
+            return XML_FILE_PATH;
+        }
+        System.out.println("Notes of " + XML_FILE_PATH + " were converted to " + FILE_PATH
+                + ", xml file is kept as a copy");
+        return FILE_PATH;
+    }
+
+    /*
+     * Returns -1 if port is not a number or is out of range 0-65535
+     */
+    private static int parsePort(String port) {
+        try {
+            int number = Integer.parseInt(port);
+            return number >= 0 && number <= MAX_PORT ? number : -1;
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
 }
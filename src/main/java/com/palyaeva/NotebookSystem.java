@@ -3,14 +3,24 @@ package com.palyaeva;
 import com.palyaeva.entity.Employee;
 import com.palyaeva.entity.Manager;
 import com.palyaeva.entity.Person;
-import com.palyaeva.serialization.PersonSerializer;
+import com.palyaeva.serialization.PersonExporter;
+import com.palyaeva.serialization.PersonImporter;
+import com.palyaeva.store.DepartmentHeadcount;
+import com.palyaeva.store.ManagerSpan;
+import com.palyaeva.store.NotebookStore;
+import com.palyaeva.store.PersonQuery;
+import com.palyaeva.store.ReportsPolicy;
 import com.palyaeva.validation.PersonValidator;
 import com.palyaeva.validation.ValidationException;
 
-import java.util.Comparator;
+import java.time.Year;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.palyaeva.Printer.printlnError;
 import static com.palyaeva.Printer.printlnSuccess;
@@ -24,30 +34,56 @@ import static com.palyaeva.Printer.printlnSuccess;
  * <li>Delete notes</li>
  * <li>Search for notes</li>
  * <li>Sort notes</li>
+ * <li>Show reports on departments, ages and managers</li>
  * </ul>
  */
 class NotebookSystem {
 
-    private final String filePath;
-    private final PersonSerializer serializer;
+    private final NotebookStore store;
     private final PersonValidator validator;
+
+    /*
+     * Number of notes on one page of the table
+     */
+    private static final int PAGE_SIZE = 20;
+
+    /*
+     * Number of managers in report of span of control and number of years in one group of ages
+     */
+    private static final int REPORT_LIMIT = 20;
+    private static final int AGE_GROUP = 10;
+
+    /*
+     * Widths of columns of reports, negative width aligns values to the left
+     */
+    private static final int[] HEADCOUNT_WIDTHS = {-20, 8, 9, 7};
+    private static final int[] AGES_WIDTHS = {-7, 7};
+    private static final int[] SPANS_WIDTHS = {-5, -25, -20, 9};
+
     private final Scanner scanner = new Scanner(System.in);
-    private List<Person> workers;
+    private final TablePrinter tablePrinter = new TablePrinter(System.out);
 
-    NotebookSystem(String filePath, PersonSerializer serializer, PersonValidator validator) {
-        this.serializer = serializer;
-        this.filePath = filePath;
+    /**
+     * @param store     store of notes, it can be shared with other clients
+     * @param validator validator of typed fields
+     */
+    NotebookSystem(NotebookStore store, PersonValidator validator) {
+        this.store = store;
         this.validator = validator;
     }
 
     /**
-     * Loads information from file into List<Person>
-     * and provides saving data from that list into
-     * file when user finishes working with the application and closes it
+     * Opens the store without loading notes, so the menu appears before data file is loaded.
+     * Notes are loaded when they are needed for the first time,
+     * binary data file gives pages of notes even before that.
+     * Every change is written to the journal as soon as it is made and data file is saved in background.
+     * Data file is also saved on exit from the menu, so the journal is empty at the next start
+     * and notes are not loaded before the menu appears. Changes of the application which was killed
+     * are replayed from the journal at the next start.
      */
-    private void init() {
-        workers = serializer.deserialize(filePath);
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> serializer.serialize(workers, filePath)));
+    void init() {
+        store.loadLazily();
+        Runtime.getRuntime().addShutdownHook(new Thread(store::close));
     }
 
     /**
@@ -68,7 +104,10 @@ class NotebookSystem {
      * <li> 1 - by first name</li>
      * <li> 2 - by last name</li>
      * <li> 3 - by phone number</li>
-     * <li> 4 - back to menu</li>
+     * <li> 4 - by similar first name</li>
+     * <li> 5 - by similar last name</li>
+     * <li> 6 - by several fields</li>
+     * <li> 7 - back to menu</li>
      * </ul>
      * </li>
      * <li> 5 - sort notes:
@@ -78,6 +117,10 @@ class NotebookSystem {
      * <li> 3 - back to menu</li>
      * </ul>
      * </li>
+     * <li> 6 - import notes</li>
+     * <li> 7 - export notes</li>
+     * <li> 8 - move managers of department to another department</li>
+     * <li> 9 - reports</li>
      * <li> 0 - exit</li>
      * <li> ? - list of commands</li>
      * </ul>
@@ -101,7 +144,7 @@ class NotebookSystem {
                     isFinish = true;
                     break;
                 case "1":
-                    printWorkers(workers);
+                    printWorkers(store.size(), store::page);
                     break;
                 case "2":
                     addNote();
@@ -115,54 +158,211 @@ class NotebookSystem {
                 case "5":
                     sort();
                     break;
+                case "6":
+                    importNotes();
+                    break;
+                case "7":
+                    exportNotes();
+                    break;
+                case "8":
+                    moveDepartment();
+                    break;
+                case "9":
+                    reports();
+                    break;
                 default:
                     printlnError("Invalid command");
                     break;
             }
         }
+        store.flush();
     }
 
     /**
      * Deletes note from the list.
-     * Note is specified by its number in the list.
+     * Note is specified by its id, which is shown in the first column of every list.
      */
     /*
     There is a tricky test-case:
-    If we delete a manager, we can't find him for employees who obey him.
-    So next validation will face a problem.
-    If we exit the program and start it again, we will get message "Manager not found!"
-    and we will lost employees who had deleted manager, because of validateManager method.
-
-    I don't know exactly how to handle it right, because every employee should have a manager.
+    If we delete a manager, employees who obey him would be left without manager,
+    and on the next start they would be lost with message "Manager not found!".
+    So the store doesn't delete such manager, and user chooses what to do with employees:
+    delete them too or move them to another manager.
+    Manager who has a namesake can be deleted, because employees still have a manager with that name.
      */
     private void deleteNote() {
         boolean isValid = false;
-        if (workers.isEmpty()) {
+        if (store.size() == 0) {
             System.out.println("Workers list is empty - there is nothing to delete");
         } else {
-            printWorkers(workers);
-            System.out.println("Type number of employee to delete: ");
+            printWorkers(store.size(), store::page);
+            System.out.println("Type id of employee to delete: ");
             while (!isValid) {
-                String numberInput = scanner.nextLine();
-                int number;
+                String idInput = scanner.nextLine();
                 try {
-                    number = Integer.parseInt(numberInput) - 1;
-                    if (workers.size() <= number) {
-                        printlnError("Number should be less or equal to " + workers.size());
-                    } else if (number < 0) {
-                        printlnError("Number should be positive");
+                    long id = Long.parseLong(idInput.trim());
+                    if (id <= 0) {
+                        printlnError("Id should be positive");
                     } else {
-                        workers.remove(number);
-                        printlnSuccess("Note was deleted successfully!");
+                        deleteNote(id);
                         isValid = true;
                     }
                 } catch (NumberFormatException nfe) {
-                    printlnError("Number is incorrect - should be integer number.");
+                    printlnError("Id is incorrect - should be integer number.");
+                }
+            }
+        }
+    }
+
+    private void deleteNote(long id) {
+        ReportsPolicy policy = ReportsPolicy.BLOCK;
+        long newManagerId = Person.NO_ID;
+        int reports = store.countReports(id);
+        if (reports > 0) {
+            System.out.println("Manager has " + reports + " employees. Choose what to do with them:\n" +
+                    "1 - delete them too\n" +
+                    "2 - move them to another manager\n\n" +
+                    "3 - back to menu");
+            String inputCommand = scanner.nextLine().trim();
+            if (inputCommand.equals("1")) {
+                policy = ReportsPolicy.CASCADE;
+            } else if (inputCommand.equals("2")) {
+                policy = ReportsPolicy.REASSIGN;
+                newManagerId = readId("Type id of new manager: ");
+            } else {
+                return;
+            }
+        }
+        try {
+            // note can be deleted by another client between reading and deleting
+            if (store.remove(id, policy, newManagerId) != null) {
+                printlnSuccess("Note was deleted successfully!");
+            } else {
+                printlnError("Note with id " + id + " is not found");
+            }
+        } catch (ValidationException exception) {
+            printlnError(exception.getMessage());
+        }
+    }
+
+    private long readId(String promptForInput) {
+        while (true) {
+            System.out.println(promptForInput);
+            try {
+                long id = Long.parseLong(scanner.nextLine().trim());
+                if (id > 0) {
+                    return id;
                 }
+                printlnError("Id should be positive");
+            } catch (NumberFormatException nfe) {
+                printlnError("Id is incorrect - should be integer number.");
             }
         }
     }
 
+    /**
+     * Reports:
+     * <ul>
+     * <li> 1 headcount per department</li>
+     * <li> 2 distribution of ages</li>
+     * <li> 3 span of control of managers</li>
+     * <li> 4 back to menu</li>
+     * </ul>
+     * Numbers are taken from indexes of the store, so notes are not scanned.
+     */
+    private void reports() {
+        while (true) {
+            System.out.println("Report:\n" +
+                    "1 - headcount per department\n" +
+                    "2 - distribution of ages\n" +
+                    "3 - managers with the most employees\n\n" +
+                    "4 - back to menu");
+            switch (scanner.nextLine()) {
+                case "1":
+                    printHeadcount();
+                    return;
+                case "2":
+                    printAges();
+                    return;
+                case "3":
+                    printSpans();
+                    return;
+                case "4":
+                    return;
+                default:
+                    printlnError("Invalid command");
+                    break;
+            }
+        }
+    }
+
+    private void printHeadcount() {
+        List<DepartmentHeadcount> headcount = store.headcountByDepartment();
+        if (headcount.isEmpty()) {
+            System.out.println("No departments found");
+            return;
+        }
+        List<String[]> rows = new ArrayList<>(headcount.size());
+        for (DepartmentHeadcount department : headcount) {
+            rows.add(new String[]{department.getDepartment(), String.valueOf(department.getManagers()),
+                    String.valueOf(department.getEmployees()), String.valueOf(department.getTotal())});
+        }
+        tablePrinter.printReport(HEADCOUNT_WIDTHS, new String[]{"Department", "Managers", "Employees", "Total"}, rows);
+    }
+
+    /*
+     * Ages are grouped by decades
+     */
+    private void printAges() {
+        SortedMap<Integer, Integer> years = store.countByBirthYear();
+        if (years.isEmpty()) {
+            System.out.println("No notes found");
+            return;
+        }
+        int currentYear = Year.now().getValue();
+        SortedMap<Integer, Integer> decades = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> year : years.entrySet()) {
+            decades.merge((currentYear - year.getKey()) / AGE_GROUP * AGE_GROUP, year.getValue(), Integer::sum);
+        }
+        List<String[]> rows = new ArrayList<>(decades.size());
+        for (Map.Entry<Integer, Integer> decade : decades.entrySet()) {
+            rows.add(new String[]{decade.getKey() + "-" + (decade.getKey() + AGE_GROUP - 1),
+                    String.valueOf(decade.getValue())});
+        }
+        tablePrinter.printReport(AGES_WIDTHS, new String[]{"Age", "Notes"}, rows);
+    }
+
+    private void printSpans() {
+        List<ManagerSpan> spans = store.spanOfControl(REPORT_LIMIT);
+        if (spans.isEmpty()) {
+            System.out.println("No managers found");
+            return;
+        }
+        List<String[]> rows = new ArrayList<>(spans.size());
+        for (ManagerSpan span : spans) {
+            Manager manager = span.getManager();
+            rows.add(new String[]{String.valueOf(manager.getId()),
+                    manager.getFirstName() + " " + manager.getLastName(), manager.getDepartment(),
+                    String.valueOf(span.getEmployees())});
+        }
+        tablePrinter.printReport(SPANS_WIDTHS, new String[]{"Id", "Manager", "Department", "Employees"}, rows);
+    }
+
+    /**
+     * Moves all managers of one department to another department
+     */
+    private void moveDepartment() {
+        System.out.println("Department to move from:");
+        String from = scanner.nextLine().trim();
+        String to = readParameter("New department: ", validator::validateDepartment);
+        int count = store.moveDepartment(from, to);
+        if (count > 0) {
+            printlnSuccess(count + " managers were moved to department " + to);
+        } else {
+            printlnError("Department " + from + " has no managers");
+        }
+    }
+
     /**
      * Adds new note to the list - employee or manager.
      */
@@ -177,19 +377,21 @@ class NotebookSystem {
             String inputCommand = scanner.nextLine();
             switch (inputCommand) {
                 case "1":
-                    if (workers.isEmpty()) {
-                        System.out.println("List of workers is empty. Please add a manager first.");
+                    if (!store.hasManagers()) {
+                        System.out.println("There are no managers. Please add a manager first.");
                         continue;
                     } else {
-                        workers.add(readEmployee());
-                        printlnSuccess("Employee was added successfully!");
-                        isValid = true;
+                        isValid = addWorker(readEmployee());
+                        if (isValid) {
+                            printlnSuccess("Employee was added successfully!");
+                        }
                         break;
                     }
                 case "2":
-                    workers.add(readManager());
-                    printlnSuccess("Manager was added successfully!");
-                    isValid = true;
+                    isValid = addWorker(readManager());
+                    if (isValid) {
+                        printlnSuccess("Manager was added successfully!");
+                    }
                     break;
                 case "3":
                     return;
@@ -200,6 +402,20 @@ class NotebookSystem {
         }
     }
 
+    /*
+     * Manager of employee can be deleted by another client after it was typed,
+     * then store rejects the employee
+     */
+    private boolean addWorker(Person worker) {
+        try {
+            store.add(worker);
+            return true;
+        } catch (ValidationException exception) {
+            printlnError(exception.getMessage());
+            return false;
+        }
+    }
+
     private Employee readEmployee() {
         String firstName = readName("First name: ", "First name");
         String lastName = readName("Last name: ", "Last name");
@@ -281,7 +497,7 @@ class NotebookSystem {
             String managerLastName = scanner.nextLine().trim();
             String fullName = managerFirstName + " " + managerLastName;
             try {
-                validator.validateManager(fullName, workers);
+                store.validateManager(fullName);
                 isValid = true;
                 return fullName;
             } catch (ValidationException exception) {
@@ -297,7 +513,10 @@ class NotebookSystem {
      * <li> 1 by first name</li>
      * <li> 2 by last name</li>
      * <li> 3 by phone number</li>
-     * <li> 4 back to menu</li>
+     * <li> 4 by first name with typos or in other letters</li>
+     * <li> 5 by last name with typos or in other letters</li>
+     * <li> 6 by several fields at once</li>
+     * <li> 7 back to menu</li>
      * </ul>
      */
     private void search() {
@@ -306,24 +525,44 @@ class NotebookSystem {
             System.out.println("Search by:\n" +
                     "1 - first name\n" +
                     "2 - last name\n" +
-                    "3 - phone number\n\n" +
-                    "4 - back to menu");
+                    "3 - phone number\n" +
+                    "4 - similar first name\n" +
+                    "5 - similar last name\n" +
+                    "6 - several fields\n\n" +
+                    "7 - back to menu");
             String inputCommand = scanner.nextLine();
             List<Person> resultList;
             switch (inputCommand) {
                 case "1":
-                    resultList = findByFirstName();
+                    System.out.println("First name: ");
+                    resultList = findByFirstName(scanner.nextLine().trim());
                     isValid = true;
                     break;
                 case "2":
-                    resultList = findByLastName();
+                    System.out.println("Last name: ");
+                    resultList = findByLastName(scanner.nextLine().trim());
                     isValid = true;
                     break;
                 case "3":
-                    resultList = findByPhoneNumber();
+                    resultList = findByPhoneNumber(readParameter("Phone number: ",
+                            validator::validatePhoneNumber));
                     isValid = true;
                     break;
                 case "4":
+                    System.out.println("First name: ");
+                    resultList = store.findBySimilarFirstName(scanner.nextLine().trim());
+                    isValid = true;
+                    break;
+                case "5":
+                    System.out.println("Last name: ");
+                    resultList = store.findBySimilarLastName(scanner.nextLine().trim());
+                    isValid = true;
+                    break;
+                case "6":
+                    resultList = store.find(readQuery());
+                    isValid = true;
+                    break;
+                case "7":
                     return;
                 default:
                     printlnError("Invalid command");
@@ -338,45 +577,103 @@ class NotebookSystem {
     }
 
     /**
-     * Searching by last name by "contains" method - you can type only part of the name
+     * Reads conditions of compound search, empty field is not checked.
+     * For example, employees of manager born in 1990s: only manager and years are typed.
+     *
+     * @return query with typed conditions
+     */
+    private PersonQuery readQuery() {
+        System.out.println("Type values of fields, leave empty to skip field");
+        PersonQuery query = new PersonQuery();
+        System.out.println("First name contains: ");
+        String firstName = scanner.nextLine().trim();
+        if (!firstName.isEmpty()) {
+            query.firstNameContains(firstName);
+        }
+        System.out.println("Last name contains: ");
+        String lastName = scanner.nextLine().trim();
+        if (!lastName.isEmpty()) {
+            query.lastNameContains(lastName);
+        }
+        String phoneNumber = readOptionalParameter("Phone number: ", validator::validatePhoneNumber);
+        if (!phoneNumber.isEmpty()) {
+            query.phoneNumber(phoneNumber);
+        }
+        String fromYear = readOptionalParameter("Born from year: ", validator::validateBirthYear);
+        String toYear = readOptionalParameter("Born to year: ", validator::validateBirthYear);
+        if (!fromYear.isEmpty() || !toYear.isEmpty()) {
+            query.bornBetween(fromYear.isEmpty() ? Integer.MIN_VALUE : Integer.parseInt(fromYear),
+                    toYear.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(toYear));
+        }
+        System.out.println("Department: ");
+        String department = scanner.nextLine().trim();
+        if (!department.isEmpty()) {
+            query.department(department);
+        }
+        System.out.println("Manager's first and last name: ");
+        String manager = scanner.nextLine().trim();
+        if (!manager.isEmpty()) {
+            query.managedBy(manager);
+        }
+        return query;
+    }
+
+    /*
+     * The same as readParameter, but empty value is accepted
+     */
+    private String readOptionalParameter(String promptForInput, Validator validator) {
+        while (true) {
+            System.out.println(promptForInput);
+            String parameter = scanner.nextLine().trim();
+            if (parameter.isEmpty()) {
+                return parameter;
+            }
+            try {
+                validator.validate(parameter);
+                return parameter;
+            } catch (ValidationException exception) {
+                printlnError(exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Searching by last name by "contains" method - you can type only part of the name.
+     * Search is case-insensitive and uses n-gram index of last names.
      *
+     * @param lastName part of last name
      * @return list of found workers
      */
-    private List<Person> findByLastName() {
-        System.out.println("Last name: ");
-        String lastName = scanner.nextLine().trim().toLowerCase();
-        return workers.stream().filter(person ->
-                person.getLastName().toLowerCase().contains(lastName))
-                .collect(Collectors.toList());
+    List<Person> findByLastName(String lastName) {
+        return store.findByLastName(lastName);
     }
 
     /**
-     * Searching by first name by "contains" method - you can type only part of the name
+     * Searching by first name by "contains" method - you can type only part of the name.
+     * Search is case-insensitive and uses n-gram index of first names.
      *
+     * @param firstName part of first name
      * @return list of found workers
      */
-    private List<Person> findByFirstName() {
-        System.out.println("First name: ");
-        String firstName = scanner.nextLine().trim().toLowerCase();
-        return workers.stream()
-                .filter(person -> person.getFirstName().toLowerCase().contains(firstName))
-                .collect(Collectors.toList());
+    List<Person> findByFirstName(String firstName) {
+        return store.findByFirstName(firstName);
     }
 
     /**
-     * Searching by phone number by "equals" method - you should type full number
+     * Searching by phone number - you should type full number.
+     * Number can be typed with any of prefixes +7/7/8.
      *
+     * @param phoneNumber valid phone number
      * @return list of found workers
      */
-    private List<Person> findByPhoneNumber() {
-        String phoneNumber = readParameter("Phone number: ", validator::validatePhoneNumber);
-        return workers.stream()
-                .filter(person -> person.getPhoneNumber().equals(phoneNumber))
-                .collect(Collectors.toList());
+    List<Person> findByPhoneNumber(String phoneNumber) {
+        return store.findByPhoneNumber(phoneNumber);
     }
 
     /**
-     * Method for list sorting.
+     * Method for showing sorted notes.
+     * Sorted orders are maintained by views on every change,
+     * so notes are not sorted when they are shown and the list of notes keeps its order.
      * Sorting notes:
      * <ul>
      * <li> 1 by last name</li>
@@ -392,14 +689,14 @@ class NotebookSystem {
                     "2 - year of birth\n\n" +
                     "3 - back to menu");
             String inputCommand = scanner.nextLine();
+            TablePrinter.PageSource view;
             switch (inputCommand) {
                 case "1":
-                    workers.sort((worker1, worker2) ->
-                            worker1.getLastName().compareToIgnoreCase(worker2.getLastName()));
+                    view = store::sortedByLastName;
                     isValid = true;
                     break;
                 case "2":
-                    workers.sort(Comparator.comparingInt(Person::getBirthYear));
+                    view = store::sortedByBirthYear;
                     isValid = true;
                     break;
                 case "3":
@@ -408,45 +705,102 @@ class NotebookSystem {
                     printlnError("Invalid command");
                     continue;
             }
-            printWorkers(workers);
+            printWorkers(store.size(), view);
         }
     }
 
     private void printWorkers(List<Person> workersList) {
-        if (workers.isEmpty()) {
+        printWorkers(workersList.size(), (offset, limit) ->
+                workersList.subList(Math.min(offset, workersList.size()),
+                        Math.min(offset + limit, workersList.size())));
+    }
+
+    /**
+     * Prints notes by pages of {@value PAGE_SIZE} notes.
+     * If there is more than one page, user can move to next or previous page.
+     *
+     * @param count  number of notes
+     * @param source source of notes for page
+     */
+    private void printWorkers(int count, TablePrinter.PageSource source) {
+        if (count == 0) {
             System.out.println("Workers list is empty");
-        } else {
-            String format = "%-5s%-9s%-12s%-12s%-5s%-13s%-20s%-20s\n";
-
-            System.out.format(format,
-                    "Id", "Post", "First name", "Last name", "Year",
-                    "Phone number", "Manager", "Department");
-            int i = 1;
-            for (Person worker : workersList) {
-                if (worker instanceof Manager) {
-                    System.out.format(format,
-                            i,
-                            "Manager",
-                            worker.getFirstName(),
-                            worker.getLastName(),
-                            worker.getBirthYear(),
-                            worker.getPhoneNumber(),
-                            "-",
-                            ((Manager) worker).getDepartment());
-                }
-                if (worker instanceof Employee) {
-                    System.out.format(format,
-                            i,
-                            "Employee",
-                            worker.getFirstName(),
-                            worker.getLastName(),
-                            worker.getBirthYear(),
-                            worker.getPhoneNumber(),
-                            ((Employee) worker).getManager(),
-                            "-");
-                }
-                i++;
+            return;
+        }
+        int pages = (count + PAGE_SIZE - 1) / PAGE_SIZE;
+        int page = 0;
+        while (true) {
+            tablePrinter.printPage(source, page * PAGE_SIZE, PAGE_SIZE);
+            if (pages <= 1) {
+                return;
+            }
+            System.out.println("Page " + (page + 1) + " of " + pages + ". " +
+                    "n - next page, p - previous page, q - stop");
+            String inputCommand = scanner.nextLine().trim();
+            switch (inputCommand) {
+                case "n":
+                    if (page + 1 < pages) {
+                        page++;
+                    } else {
+                        printlnError("It is the last page");
+                    }
+                    break;
+                case "p":
+                    if (page > 0) {
+                        page--;
+                    } else {
+                        printlnError("It is the first page");
+                    }
+                    break;
+                case "q":
+                    return;
+                default:
+                    printlnError("Invalid command");
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Adds notes from CSV or NDJSON file in batches and prints report
+     */
+    private void importNotes() {
+        String path = readFilePath("Path to file for import (.csv, .ndjson or .jsonl):");
+        if (path != null) {
+            new PersonImporter(validator, ForkJoinPool.commonPool())
+                    .importFile(path, store::addAll)
+                    .print(System.out);
+        }
+    }
+
+    /**
+     * Saves all notes to CSV or NDJSON file
+     */
+    private void exportNotes() {
+        String path = readFilePath("Path to file for export (.csv, .ndjson or .jsonl):");
+        if (path != null) {
+            int count = PersonExporter.export(path, store::page);
+            if (count >= 0) {
+                printlnSuccess(count + " notes were exported");
+            }
+        }
+    }
+
+    /**
+     * @return path with known extension or null if user returns to menu
+     */
+    private String readFilePath(String prompt) {
+        while (true) {
+            System.out.println(prompt + "\n" +
+                    "empty line - back to menu");
+            String path = scanner.nextLine().trim();
+            if (path.isEmpty()) {
+                return null;
+            }
+            if (PersonImporter.isSupported(path)) {
+                return path;
             }
+            printlnError("Unknown format of file");
         }
     }
 
@@ -456,6 +810,10 @@ class NotebookSystem {
                 "3 - delete note\n" +
                 "4 - search for notes\n" +
                 "5 - sort notes\n" +
+                "6 - import notes from CSV or NDJSON file\n" +
+                "7 - export notes to CSV or NDJSON file\n" +
+                "8 - move managers of department to another department\n" +
+                "9 - reports\n" +
                 "0 - exit\n" +
                 "? - list of commands\n");
     }
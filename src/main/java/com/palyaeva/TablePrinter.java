@@ -0,0 +1,144 @@
+package com.palyaeva;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Class for printing notes as a table page by page, and reports as tables.
+ * Rows are built in one reusable {@link StringBuilder} with padding of columns,
+ * and the page is written through a buffered writer which is flushed once per page.
+ */
+class TablePrinter {
+
+    /*
+     * Widths of columns: Id, Post, First name, Last name, Year, Phone number, Manager, Department
+     */
+    private static final int[] WIDTHS = {5, 9, 12, 12, 5, 13, 20, 20};
+
+    private static final String[] HEADER = {"Id", "Post", "First name", "Last name", "Year",
+            "Phone number", "Manager", "Department"};
+
+    private final Writer writer;
+    private final StringBuilder row = new StringBuilder(128);
+
+    TablePrinter(OutputStream stream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(stream), 1 << 14);
+    }
+
+    /**
+     * Source of notes for printing page by page
+     */
+    @FunctionalInterface
+    interface PageSource {
+        /**
+         * @param offset number of skipped notes
+         * @param limit  maximum number of notes on page
+         * @return notes of page
+         */
+        List<Person> page(int offset, int limit);
+    }
+
+    /**
+     * Prints header and one page of notes with their ids.
+     *
+     * @param source source of notes
+     * @param offset number of skipped notes
+     * @param limit  maximum number of notes on page
+     */
+    void printPage(PageSource source, int offset, int limit) {
+        try {
+            row.setLength(0);
+            for (int column = 0; column < HEADER.length; column++) {
+                appendCell(HEADER[column], column);
+            }
+            writeRow();
+
+            for (Person worker : source.page(offset, limit)) {
+                row.setLength(0);
+                appendCell(worker.getId(), 0);
+                appendCell(worker instanceof Manager ? "Manager" : "Employee", 1);
+                appendCell(worker.getFirstName(), 2);
+                appendCell(worker.getLastName(), 3);
+                appendCell(worker.getBirthYear(), 4);
+                appendCell(worker.getPhoneNumber(), 5);
+                appendCell(worker instanceof Employee ? ((Employee) worker).getManager() : "-", 6);
+                appendCell(worker instanceof Manager ? ((Manager) worker).getDepartment() : "-", 7);
+                writeRow();
+            }
+            writer.flush();
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while printing notes: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Prints report as a table with header, cells of a row are separated by space.
+     * Width of column is given as in format "%Ns": value is aligned to the left if width is negative
+     * and to the right otherwise.
+     *
+     * @param widths widths of columns
+     * @param header names of columns
+     * @param rows   cells of rows
+     */
+    void printReport(int[] widths, String[] header, List<String[]> rows) {
+        try {
+            writeReportRow(widths, header);
+            for (String[] cells : rows) {
+                writeReportRow(widths, cells);
+            }
+            writer.flush();
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while printing report: " + exception.getMessage());
+        }
+    }
+
+    private void writeReportRow(int[] widths, String[] cells) throws IOException {
+        row.setLength(0);
+        for (int column = 0; column < cells.length; column++) {
+            if (column > 0) {
+                row.append(' ');
+            }
+            int end = row.length() + Math.abs(widths[column]);
+            if (widths[column] > 0) {
+                pad(end - cells[column].length());
+            }
+            row.append(cells[column]);
+            pad(end);
+        }
+        writeRow();
+    }
+
+    private void appendCell(String value, int column) {
+        int end = row.length() + WIDTHS[column];
+        row.append(value);
+        pad(end);
+    }
+
+    private void appendCell(long value, int column) {
+        int end = row.length() + WIDTHS[column];
+        row.append(value);
+        pad(end);
+    }
+
+    /*
+     * Like "%-Ns" format, long values are not cut
+     */
+    private void pad(int end) {
+        while (row.length() < end) {
+            row.append(' ');
+        }
+    }
+
+    private void writeRow() throws IOException {
+        row.append('\n');
+        writer.append(row);
+    }
+}
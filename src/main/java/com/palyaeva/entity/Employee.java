@@ -8,10 +8,19 @@ public class Employee extends Person {
     private final String manager;
 
     public Employee(String firstName, String lastName, int birthYear, String phoneNumber, String manager) {
-        super(firstName, lastName, birthYear, phoneNumber);
+        this(NO_ID, firstName, lastName, birthYear, phoneNumber, manager);
+    }
+
+    public Employee(long id, String firstName, String lastName, int birthYear, String phoneNumber, String manager) {
+        super(id, firstName, lastName, birthYear, phoneNumber);
         this.manager = manager;
     }
 
+    @Override
+    public Employee withId(long id) {
+        return new Employee(id, getFirstName(), getLastName(), getBirthYear(), getPhoneNumber(), manager);
+    }
+
     public String getManager() {
         return manager;
     }
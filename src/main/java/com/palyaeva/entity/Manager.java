@@ -8,10 +8,19 @@ public class Manager extends Person {
     private final String department;
 
     public Manager(String firstName, String lastName, int birthYear, String phoneNumber, String department) {
-        super(firstName, lastName, birthYear, phoneNumber);
+        this(NO_ID, firstName, lastName, birthYear, phoneNumber, department);
+    }
+
+    public Manager(long id, String firstName, String lastName, int birthYear, String phoneNumber, String department) {
+        super(id, firstName, lastName, birthYear, phoneNumber);
         this.department = department;
     }
 
+    @Override
+    public Manager withId(long id) {
+        return new Manager(id, getFirstName(), getLastName(), getBirthYear(), getPhoneNumber(), department);
+    }
+
     public String getDepartment() {
         return department;
     }
@@ -5,6 +5,13 @@ package com.palyaeva.entity;
  */
 public abstract class Person {
 
+    /**
+     * Id of person which is not added to notebook yet
+     */
+    public static final long NO_ID = 0;
+
+    private final long id;
+
     private final String firstName;
 
     private final String lastName;
@@ -14,12 +21,33 @@ public abstract class Person {
     private final String phoneNumber;
 
     public Person(String firstName, String lastName, int birthYear, String phoneNumber) {
+        this(NO_ID, firstName, lastName, birthYear, phoneNumber);
+    }
+
+    public Person(long id, String firstName, String lastName, int birthYear, String phoneNumber) {
+        this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
         this.birthYear = birthYear;
         this.phoneNumber = phoneNumber;
     }
 
+    /**
+     * Id is given to note when it is added to notebook and doesn't change after that,
+     * unlike its position in the list
+     *
+     * @return id of note or {@link #NO_ID}
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @param id id of note
+     * @return copy of person with given id
+     */
+    public abstract Person withId(long id);
+
     public String getFirstName() {
         return firstName;
     }
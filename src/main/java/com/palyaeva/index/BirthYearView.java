@@ -0,0 +1,141 @@
+package com.palyaeva.index;
+
+import com.palyaeva.entity.Person;
+
+import java.util.BitSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Rows sorted by year of birth.
+ * Valid years are in a small range, so every year has its own bucket
+ * and rows of the same year are kept in increasing order, that is in order of adding.
+ * Adding takes O(1), deleting takes binary search and shift inside one bucket.
+ */
+public class BirthYearView implements SortedView {
+
+    private static final int MIN_YEAR = 1900;
+    private static final int MAX_YEAR = 2002;
+
+    private final IntList[] buckets = new IntList[MAX_YEAR - MIN_YEAR + 1];
+    private int size;
+
+    public BirthYearView() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new IntList();
+        }
+    }
+
+    @Override
+    public void add(int row, Person person) {
+        bucket(person).add(row);
+        size++;
+    }
+
+    @Override
+    public void remove(int row, Person person) {
+        IntList bucket = bucket(person);
+        int index = bucket.indexOfSorted(row);
+        if (index >= 0) {
+            bucket.removeAt(index);
+            size--;
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (IntList bucket : buckets) {
+            bucket.clear();
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Skips whole buckets before offset, so page is found in O(number of years + limit)
+     */
+    @Override
+    public int[] page(int offset, int limit) {
+        IntList page = new IntList(Math.min(limit, Math.max(0, size - offset)));
+        int skipped = 0;
+        for (IntList bucket : buckets) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (skipped + bucket.size() <= offset) {
+                skipped += bucket.size();
+                continue;
+            }
+            for (int i = Math.max(0, offset - skipped); i < bucket.size() && page.size() < limit; i++) {
+                page.add(bucket.get(i));
+            }
+            skipped = offset;
+        }
+        return page.toArray();
+    }
+
+    /**
+     * Counts rows in buckets of years from given range
+     *
+     * @param fromYear first year of range
+     * @param toYear   last year of range
+     * @return number of rows, it includes rows with years out of valid range if range touches its bound
+     */
+    public int count(int fromYear, int toYear) {
+        int count = 0;
+        for (int year = Math.max(MIN_YEAR, fromYear); year <= Math.min(MAX_YEAR, toYear); year++) {
+            count += buckets[year - MIN_YEAR].size();
+        }
+        return count;
+    }
+
+    /**
+     * Sets bits of rows in buckets of years from given range
+     *
+     * @param fromYear first year of range
+     * @param toYear   last year of range
+     * @param rows     bitmap of rows
+     */
+    public void addRows(int fromYear, int toYear, BitSet rows) {
+        for (int year = Math.max(MIN_YEAR, fromYear); year <= Math.min(MAX_YEAR, toYear); year++) {
+            IntList bucket = buckets[year - MIN_YEAR];
+            for (int i = 0; i < bucket.size(); i++) {
+                rows.set(bucket.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return number of rows for every year which has rows, in increasing order of years
+     */
+    public SortedMap<Integer, Integer> counts() {
+        SortedMap<Integer, Integer> counts = new TreeMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            if (!buckets[i].isEmpty()) {
+                counts.put(MIN_YEAR + i, buckets[i].size());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @param fromYear first year of range
+     * @param toYear   last year of range
+     * @return true if buckets of range have only rows with years from this range
+     */
+    public static boolean isExact(int fromYear, int toYear) {
+        return fromYear > MIN_YEAR && toYear < MAX_YEAR;
+    }
+
+    /*
+     * Years out of valid range are put to the nearest bucket
+     */
+    private IntList bucket(Person person) {
+        int year = Math.max(MIN_YEAR, Math.min(MAX_YEAR, person.getBirthYear()));
+        return buckets[year - MIN_YEAR];
+    }
+}
@@ -0,0 +1,123 @@
+package com.palyaeva.index;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive {@code int} values without boxing.
+ * Used for lists of rows in indexes, rows are usually added in increasing order,
+ * so such lists stay sorted and can be searched by {@link #indexOfSorted(int)}.
+ */
+public class IntList {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of values which can be added without resizing
+     */
+    public IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Inserts value into list which is sorted in increasing order.
+     * Value which is greater than all values is appended without shifting.
+     *
+     * @param value added value
+     */
+    public void addSorted(int value) {
+        if (size == 0 || values[size - 1] < value) {
+            add(value);
+            return;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        add(0);
+        System.arraycopy(values, index, values, index + 1, size - index - 1);
+        values[index] = value;
+    }
+
+    /**
+     * Merges two lists which are sorted in increasing order
+     *
+     * @param first  sorted list
+     * @param second sorted list
+     * @return new sorted list with values of both lists
+     */
+    public static IntList merge(IntList first, IntList second) {
+        IntList merged = new IntList(first.size + second.size);
+        int i = 0;
+        int j = 0;
+        while (i < first.size || j < second.size) {
+            if (j == second.size || (i < first.size && first.values[i] <= second.values[j])) {
+                merged.values[merged.size++] = first.values[i++];
+            } else {
+                merged.values[merged.size++] = second.values[j++];
+            }
+        }
+        return merged;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public void set(int index, int value) {
+        values[index] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Removes value at given position, next values are shifted
+     *
+     * @param index position of value
+     */
+    public void removeAt(int index) {
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Finds value in list which is sorted in increasing order
+     *
+     * @param value searched value
+     * @return position of value or -1 if there is no such value
+     */
+    public int indexOfSorted(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * @return copy of values
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
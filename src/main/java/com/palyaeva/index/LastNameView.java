@@ -0,0 +1,203 @@
+package com.palyaeva.index;
+
+import com.palyaeva.entity.Person;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Rows sorted by last name ignoring case.
+ * Every distinct last name has a bucket of rows in increasing order,
+ * so namesakes are kept in order of adding.
+ * <p>
+ * Buckets are nodes of a treap: a search tree by name which is also a heap by random priority,
+ * so it stays balanced on average. Every node knows the number of rows in its subtree,
+ * so adding, deleting and finding the first row of a page take O(log n) plus shift inside one bucket,
+ * and the rest of the page is read by walking the tree in order.
+ */
+public class LastNameView implements SortedView {
+
+    private static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER;
+
+    private final Random priorities = new Random();
+    private Node root;
+
+    @Override
+    public void add(int row, Person person) {
+        root = add(root, person.getLastName(), row);
+    }
+
+    @Override
+    public void remove(int row, Person person) {
+        String name = person.getLastName();
+        Node node = root;
+        int compare;
+        while (node != null && (compare = ORDER.compare(name, node.name)) != 0) {
+            node = compare < 0 ? node.left : node.right;
+        }
+        int index = node == null ? -1 : node.rows.indexOfSorted(row);
+        if (index >= 0) {
+            node.rows.removeAt(index);
+            root = removed(root, name);
+        }
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Goes down to the bucket of row at offset by sizes of subtrees,
+     * then reads buckets in order until page is full
+     */
+    @Override
+    public int[] page(int offset, int limit) {
+        IntList page = new IntList(Math.min(limit, Math.max(0, size() - offset)));
+        // buckets which are not read yet and go after the current one, the nearest is on top
+        Deque<Node> next = new ArrayDeque<>();
+        Node node = root;
+        int skipped = offset;
+        int start = 0;
+        while (node != null) {
+            int before = size(node.left);
+            if (skipped < before) {
+                next.push(node);
+                node = node.left;
+            } else if (skipped < before + node.rows.size()) {
+                next.push(node);
+                start = skipped - before;
+                break;
+            } else {
+                skipped -= before + node.rows.size();
+                node = node.right;
+            }
+        }
+        while (!next.isEmpty() && page.size() < limit) {
+            Node bucket = next.pop();
+            for (int i = start; i < bucket.rows.size() && page.size() < limit; i++) {
+                page.add(bucket.rows.get(i));
+            }
+            start = 0;
+            for (Node child = bucket.right; child != null; child = child.left) {
+                next.push(child);
+            }
+        }
+        return page.toArray();
+    }
+
+    private Node add(Node node, String name, int row) {
+        if (node == null) {
+            Node added = new Node(name, priorities.nextInt());
+            added.rows.add(row);
+            added.size = 1;
+            return added;
+        }
+        node.size++;
+        int compare = ORDER.compare(name, node.name);
+        if (compare == 0) {
+            node.rows.add(row);
+        } else if (compare < 0) {
+            node.left = add(node.left, name, row);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = add(node.right, name, row);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        return node;
+    }
+
+    /*
+     * Row is already removed from bucket of name, so sizes on the path are decreased
+     * and bucket is removed from the tree if it became empty
+     */
+    private static Node removed(Node node, String name) {
+        node.size--;
+        int compare = ORDER.compare(name, node.name);
+        if (compare < 0) {
+            node.left = removed(node.left, name);
+        } else if (compare > 0) {
+            node.right = removed(node.right, name);
+        } else if (node.rows.isEmpty()) {
+            return merge(node.left, node.right);
+        }
+        return node;
+    }
+
+    /*
+     * Joins two trees where all names of the left one go before names of the right one
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.size += right.size;
+            left.right = merge(left.right, right);
+            return left;
+        }
+        right.size += left.size;
+        right.left = merge(left, right.left);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.resize();
+        left.resize();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.resize();
+        right.resize();
+        return right;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Bucket of one last name and node of the treap
+     */
+    private static final class Node {
+        private final String name;
+        private final int priority;
+        private final IntList rows = new IntList(1);
+        /*
+         * Number of rows in buckets of this subtree
+         */
+        private int size;
+        private Node left;
+        private Node right;
+
+        private Node(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        private void resize() {
+            size = size(left) + size(right) + rows.size();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.palyaeva.index;
+
+import java.util.Arrays;
+
+/**
+ * Hash map with primitive {@code long} keys and {@code int} values and open addressing.
+ * Works like {@link LongObjectHashMap}, but values are not boxed either.
+ * {@link #NO_VALUE} marks empty slots, so it can't be used as a value.
+ */
+public class LongIntHashMap {
+
+    /**
+     * Returned by {@link #get(long)} when there is no such key
+     */
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int threshold;
+
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries which can be added without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @param key key
+     * @return value for key or {@link #NO_VALUE} if there is no such key
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * @param key key
+     * @return true if map contains key
+     */
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Associates value with key
+     *
+     * @param key   key
+     * @param value any value except {@link #NO_VALUE}
+     * @return previous value for key or {@link #NO_VALUE} if there was no such key
+     */
+    public int put(long key, int value) {
+        if (value == NO_VALUE) {
+            throw new IllegalArgumentException("Value is reserved for empty slots");
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        for (; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            resize();
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Adds delta to value of key, used for counters.
+     * Missing key is counted as 0, and key whose value becomes 0 is removed
+     *
+     * @param key   key
+     * @param delta added value
+     * @return new value
+     */
+    public int add(long key, int delta) {
+        int current = get(key);
+        int value = (current == NO_VALUE ? 0 : current) + delta;
+        if (value == 0) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes key from map
+     *
+     * @param key key
+     * @return removed value or {@link #NO_VALUE} if there was no such key
+     */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int removed = values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+
+    /*
+     * Same as in LongObjectHashMap: entries after removed slot are moved back without tombstones
+     */
+    private void shiftBack(int emptySlot) {
+        int mask = keys.length - 1;
+        int slot = emptySlot;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == NO_VALUE) {
+                break;
+            }
+            int home = hash(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - emptySlot) & mask)) {
+                keys[emptySlot] = keys[slot];
+                values[emptySlot] = values[slot];
+                emptySlot = slot;
+            }
+        }
+        values[emptySlot] = NO_VALUE;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != NO_VALUE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
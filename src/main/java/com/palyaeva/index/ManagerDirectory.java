@@ -0,0 +1,117 @@
+package com.palyaeva.index;
+
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Directory of managers with lookup by first and last name.
+ * Used for checking that employee's manager exists without scanning the list of all persons
+ * while notes are read or imported; the store keeps its own index of managers.
+ */
+public class ManagerDirectory implements ManagerLookup {
+
+    private final Set<Key> managers = new HashSet<>();
+
+    /**
+     * Creates directory of managers from given persons
+     *
+     * @param persons managers and employees
+     * @return filled directory
+     */
+    public static ManagerDirectory of(Iterable<? extends Person> persons) {
+        ManagerDirectory directory = new ManagerDirectory();
+        for (Person person : persons) {
+            directory.add(person);
+        }
+        return directory;
+    }
+
+    /**
+     * Adds person to directory if it is a manager. Employees are ignored.
+     *
+     * @param person added person
+     */
+    public void add(Person person) {
+        if (person instanceof Manager) {
+            managers.add(new Key(person.getFirstName(), person.getLastName()));
+        }
+    }
+
+    /**
+     * Checks if manager with given first and last name exists
+     *
+     * @param firstName manager's first name
+     * @param lastName  manager's last name
+     * @return true if manager is found
+     */
+    @Override
+    public boolean contains(String firstName, String lastName) {
+        return managers.contains(new Key(firstName, lastName));
+    }
+
+    /**
+     * Splits manager's full name into first name and last name like {@code fullName.split("\\s+")}:
+     * names can be separated by any number of whitespaces and whitespaces at the end are ignored,
+     * but whitespaces at the start give empty first name, so such manager is never found.
+     *
+     * @param fullName manager's first and last name
+     * @return array of first name and last name
+     * or null if full name doesn't consist of exactly two words
+     */
+    public static String[] splitFullName(String fullName) {
+        int length = fullName.length();
+        int firstEnd = skip(fullName, 0, false);
+        int lastStart = skip(fullName, firstEnd, true);
+        int lastEnd = skip(fullName, lastStart, false);
+        if (lastEnd == lastStart || skip(fullName, lastEnd, true) != length) {
+            return null;
+        }
+        return new String[]{fullName.substring(0, firstEnd), fullName.substring(lastStart, lastEnd)};
+    }
+
+    /*
+     * Returns index of the first char from start which is whitespace of regex \s if isWhitespace is false,
+     * or which is not such whitespace if isWhitespace is true
+     */
+    private static int skip(String string, int start, boolean isWhitespace) {
+        int i = start;
+        while (i < string.length() && isWhitespace(string.charAt(i)) == isWhitespace) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static final class Key {
+        private final String firstName;
+        private final String lastName;
+
+        private Key(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return firstName.equals(key.firstName) && lastName.equals(key.lastName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * firstName.hashCode() + lastName.hashCode();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.palyaeva.index;
+
+/**
+ * Lookup of managers by name, used for checking that employee's manager exists
+ */
+public interface ManagerLookup {
+
+    /**
+     * Checks if manager with given first and last name exists
+     *
+     * @param firstName manager's first name
+     * @param lastName  manager's last name
+     * @return true if manager is found
+     */
+    boolean contains(String firstName, String lastName);
+}
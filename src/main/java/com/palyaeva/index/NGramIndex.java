@@ -0,0 +1,198 @@
+package com.palyaeva.index;
+
+import com.palyaeva.entity.Person;
+
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Inverted n-gram index for case-insensitive "contains" search by name.
+ * Every lowercased name is split into all its substrings of 1, 2 and 3 letters,
+ * and every such gram refers to rows whose names contain it.
+ * <p>
+ * Query of up to 3 letters is a gram itself, so its list of rows is the exact answer,
+ * and search by the first letters typed doesn't scan the rows.
+ * Longer query is answered by the shortest list of rows among its trigrams,
+ * which are then checked for containing the whole query.
+ * Only empty query is answered by scanning all rows.
+ * Names are compared letter by letter, so search doesn't create lowercased copies of names.
+ * <p>
+ * Rows are only appended to lists of trigrams. Deleted rows stay there
+ * and are skipped by search until rows are renumbered and the index is filled again.
+ */
+public class NGramIndex implements PersonIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Function<Person, String> nameGetter;
+    private final IntFunction<String> rowName;
+    private final IntPredicate isLive;
+
+    /*
+     * Rows are added in increasing order, so search results are in the same order as notes
+     */
+    private final LongObjectHashMap<IntList> postings = new LongObjectHashMap<>();
+
+    /**
+     * @param nameGetter indexed name of person, for example {@code Person::getLastName}
+     * @param rowName    indexed name of person in given row
+     * @param isLive     checks that row is not deleted
+     */
+    public NGramIndex(Function<Person, String> nameGetter, IntFunction<String> rowName, IntPredicate isLive) {
+        this.nameGetter = nameGetter;
+        this.rowName = rowName;
+        this.isLive = isLive;
+    }
+
+    @Override
+    public void add(int row, Person person) {
+        String name = nameGetter.apply(person);
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= name.length(); i++) {
+                long key = gram(name, i, length);
+                IntList rows = postings.get(key);
+                if (rows == null) {
+                    rows = new IntList(1);
+                    postings.put(key, rows);
+                }
+                // the same gram can occur in one name twice
+                if (rows.isEmpty() || rows.get(rows.size() - 1) != row) {
+                    rows.add(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deleted row is skipped by search, so nothing is changed
+     */
+    @Override
+    public void remove(int row, Person person) {
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Finds rows whose name contains query ignoring case
+     *
+     * @param query part of name
+     * @param rows  number of rows, they are scanned if query is empty
+     * @return found rows in increasing order
+     */
+    public IntList find(String query, int rows) {
+        String lowerQuery = lowerCase(query);
+        IntList found = new IntList();
+        if (lowerQuery.isEmpty()) {
+            for (int row = 0; row < rows; row++) {
+                if (isLive.test(row)) {
+                    found.add(row);
+                }
+            }
+            return found;
+        }
+        if (lowerQuery.length() <= GRAM_LENGTH) {
+            IntList posting = postings.get(gram(lowerQuery, 0, lowerQuery.length()));
+            if (posting != null) {
+                for (int i = 0; i < posting.size(); i++) {
+                    if (isLive.test(posting.get(i))) {
+                        found.add(posting.get(i));
+                    }
+                }
+            }
+            return found;
+        }
+
+        IntList candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= lowerQuery.length(); i++) {
+            IntList posting = postings.get(gram(lowerQuery, i, GRAM_LENGTH));
+            if (posting == null) {
+                return found;
+            }
+            if (candidates == null || posting.size() < candidates.size()) {
+                candidates = posting;
+            }
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            int row = candidates.get(i);
+            if (isLive.test(row) && containsIgnoreCase(rowName.apply(row), lowerQuery)) {
+                found.add(row);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Estimates cost of {@link #find(String, int)} without searching
+     *
+     * @param query part of name
+     * @return number of rows which would be checked, or -1 if query is empty and all rows are scanned
+     */
+    public int estimate(String query) {
+        if (query.isEmpty()) {
+            return -1;
+        }
+        if (query.length() <= GRAM_LENGTH) {
+            IntList posting = postings.get(gram(query, 0, query.length()));
+            return posting == null ? 0 : posting.size();
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            IntList posting = postings.get(gram(query, i, GRAM_LENGTH));
+            if (posting == null) {
+                return 0;
+            }
+            estimate = Math.min(estimate, posting.size());
+        }
+        return estimate;
+    }
+
+    /**
+     * Creates check of a single row for the same query as {@link #find(String, int)}
+     *
+     * @param query part of name
+     * @return predicate which is true for live and deleted rows whose name contains query ignoring case
+     */
+    public IntPredicate matcher(String query) {
+        String lowerQuery = lowerCase(query);
+        return row -> containsIgnoreCase(rowName.apply(row), lowerQuery);
+    }
+
+    /*
+     * Up to three lowercased letters packed into one number, 16 bits each,
+     * and length of gram above them, so grams of different lengths have different keys
+     */
+    private static long gram(String name, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = key << Character.SIZE | Character.toLowerCase(name.charAt(i));
+        }
+        return key;
+    }
+
+    private static String lowerCase(String query) {
+        char[] letters = new char[query.length()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = Character.toLowerCase(query.charAt(i));
+        }
+        return new String(letters);
+    }
+
+    private static boolean containsIgnoreCase(String name, String lowerQuery) {
+        int last = name.length() - lowerQuery.length();
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < lowerQuery.length()
+                    && Character.toLowerCase(name.charAt(start + i)) == lowerQuery.charAt(i)) {
+                i++;
+            }
+            if (i == lowerQuery.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
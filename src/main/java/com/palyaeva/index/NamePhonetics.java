@@ -0,0 +1,225 @@
+package com.palyaeva.index;
+
+/**
+ * Spelling-independent forms of russian names which are written in Cyrillic or in Latin letters.
+ * <p>
+ * {@link #transliterate(String)} writes Cyrillic letters in Latin by common rules of passports
+ * (zh, kh, ts, ch, sh, shch, yu, ya for letters which have no Latin pair), so Cyrillic "Sidorov" becomes "sidorov".
+ * <p>
+ * {@link #key(String)} is a phonetic key in the spirit of Soundex and Metaphone, adapted for
+ * transliterated russian names: vowels except the first letter are dropped,
+ * voiced and voiceless consonants are not distinguished (b/p, v/f, g/k, d/t, z/s, zh/sh),
+ * and different spellings of one sound give the same code ("w" and "ff" as "v", "x" as "ks",
+ * "sch" as "shch", "h" as "kh", "tz" and "cz" as "ts").
+ * So "Ivanov", "Iwanow" and Cyrillic "Ivanov" have the same key, as well as "Aleksandr" and "Alexander".
+ */
+public final class NamePhonetics {
+
+    /*
+     * Codes of sounds in key, 5 bits each
+     */
+    private static final int VOWEL = 1;
+    private static final int P = 2;
+    private static final int F = 3;
+    private static final int K = 4;
+    private static final int T = 5;
+    private static final int S = 6;
+    private static final int SH = 7;
+    private static final int CH = 8;
+    private static final int TS = 9;
+    private static final int H = 10;
+    private static final int L = 11;
+    private static final int M = 12;
+    private static final int N = 13;
+    private static final int R = 14;
+
+    private static final int CODE_BITS = 5;
+    private static final int MAX_CODES = Long.SIZE / CODE_BITS;
+
+    private static final char FIRST_CYRILLIC = '\u0430';
+    private static final char LAST_CYRILLIC = '\u044f';
+    private static final char CYRILLIC_YO = '\u0451';
+
+    /*
+     * Latin letters of lowercase Cyrillic letters from FIRST_CYRILLIC to LAST_CYRILLIC, "yo" is written as "e"
+     */
+    private static final String[] CYRILLIC = {
+            "a", "b", "v", "g", "d", "e", "zh", "z", "i", "y", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"
+    };
+
+    private NamePhonetics() {
+    }
+
+    /**
+     * @param name name in any letters
+     * @return lowercased name where Cyrillic letters are replaced by Latin ones
+     */
+    public static String transliterate(String name) {
+        char[] letters = new char[name.length()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = Character.toLowerCase(name.charAt(i));
+            if (letters[i] >= FIRST_CYRILLIC && letters[i] <= LAST_CYRILLIC || letters[i] == CYRILLIC_YO) {
+                return transliterate(name, letters, i);
+            }
+        }
+        return new String(letters);
+    }
+
+    /*
+     * Name which has Cyrillic letters, letters before the first of them are already lowercased
+     */
+    private static String transliterate(String name, char[] letters, int first) {
+        StringBuilder latin = new StringBuilder(name.length() + 4);
+        latin.append(letters, 0, first);
+        for (int i = first; i < name.length(); i++) {
+            char letter = Character.toLowerCase(name.charAt(i));
+            if (letter >= FIRST_CYRILLIC && letter <= LAST_CYRILLIC) {
+                latin.append(CYRILLIC[letter - FIRST_CYRILLIC]);
+            } else if (letter == CYRILLIC_YO) {
+                latin.append('e');
+            } else {
+                latin.append(letter);
+            }
+        }
+        return latin.toString();
+    }
+
+    /**
+     * Computes phonetic key of name. Only the first {@value #MAX_CODES} sounds are kept
+     *
+     * @param name name in any letters
+     * @return key, names which sound alike have equal keys
+     */
+    public static long key(String name) {
+        return latinKey(transliterate(name));
+    }
+
+    /**
+     * @param latin result of {@link #transliterate(String)}
+     * @return the same key as {@link #key(String)} of the original name
+     */
+    static long latinKey(String latin) {
+        long key = 0;
+        int codes = 0;
+        int last = 0;
+        for (int i = 0; i < latin.length() && codes < MAX_CODES; ) {
+            char letter = latin.charAt(i);
+            int code;
+            int length = 1;
+            switch (letter) {
+                case 'a':
+                case 'e':
+                case 'i':
+                case 'o':
+                case 'u':
+                case 'y':
+                case 'j':
+                    code = VOWEL;
+                    break;
+                case 'b':
+                    code = P;
+                    break;
+                case 'p':
+                    code = latin.startsWith("ph", i) ? F : P;
+                    length = code == F ? 2 : 1;
+                    break;
+                case 'f':
+                case 'v':
+                case 'w':
+                    code = F;
+                    break;
+                case 'g':
+                case 'q':
+                    code = K;
+                    break;
+                case 'k':
+                    code = latin.startsWith("kh", i) ? H : K;
+                    length = code == H ? 2 : 1;
+                    break;
+                case 'h':
+                    code = H;
+                    break;
+                case 'x':
+                    if (codes + 2 > MAX_CODES) {
+                        codes = MAX_CODES;
+                        continue;
+                    }
+                    key = key << CODE_BITS | K;
+                    codes++;
+                    code = S;
+                    break;
+                case 'd':
+                    code = T;
+                    break;
+                case 't':
+                    if (latin.startsWith("tch", i)) {
+                        code = CH;
+                        length = 3;
+                    } else if (latin.startsWith("ts", i) || latin.startsWith("tz", i)) {
+                        code = TS;
+                        length = 2;
+                    } else {
+                        code = T;
+                        length = latin.startsWith("th", i) ? 2 : 1;
+                    }
+                    break;
+                case 'c':
+                    if (latin.startsWith("ch", i)) {
+                        code = CH;
+                        length = 2;
+                    } else if (latin.startsWith("cz", i)) {
+                        code = TS;
+                        length = 2;
+                    } else if (i + 1 < latin.length() && "eiy".indexOf(latin.charAt(i + 1)) >= 0) {
+                        code = S;
+                    } else {
+                        code = K;
+                        length = latin.startsWith("ck", i) ? 2 : 1;
+                    }
+                    break;
+                case 's':
+                    if (latin.startsWith("shch", i)) {
+                        code = SH;
+                        length = 4;
+                    } else if (latin.startsWith("sch", i)) {
+                        code = SH;
+                        length = 3;
+                    } else {
+                        code = latin.startsWith("sh", i) ? SH : S;
+                        length = code == SH ? 2 : 1;
+                    }
+                    break;
+                case 'z':
+                    code = latin.startsWith("zh", i) ? SH : S;
+                    length = code == SH ? 2 : 1;
+                    break;
+                case 'l':
+                    code = L;
+                    break;
+                case 'm':
+                    code = M;
+                    break;
+                case 'n':
+                    code = N;
+                    break;
+                case 'r':
+                    code = R;
+                    break;
+                default:
+                    code = 0;
+            }
+            i += length;
+            if (code == 0) {
+                continue;
+            }
+            // vowel is kept only as the first sound, and repeated consonant is written once
+            if (code == VOWEL ? codes == 0 : code != last) {
+                key = key << CODE_BITS | code;
+                codes++;
+            }
+            last = code;
+        }
+        return key;
+    }
+}
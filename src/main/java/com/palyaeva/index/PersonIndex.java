@@ -0,0 +1,34 @@
+package com.palyaeva.index;
+
+import com.palyaeva.entity.Person;
+
+/**
+ * Index over rows of notes which is kept in sync with the store.
+ * Every note has a row number, indexes keep rows instead of references to persons,
+ * and the person is passed only to read its fields.
+ * Every added note is passed to {@link #add(int, Person)}
+ * and every deleted note is passed to {@link #remove(int, Person)}.
+ */
+public interface PersonIndex {
+
+    /**
+     * Adds row to index. Rows are added in increasing order.
+     *
+     * @param row    row of added person
+     * @param person added person
+     */
+    void add(int row, Person person);
+
+    /**
+     * Removes row from index
+     *
+     * @param row    row of deleted person
+     * @param person deleted person
+     */
+    void remove(int row, Person person);
+
+    /**
+     * Removes all rows, used before rows are renumbered
+     */
+    void clear();
+}
@@ -0,0 +1,122 @@
+package com.palyaeva.index;
+
+import com.palyaeva.entity.Person;
+
+/**
+ * Index for exact search by phone number.
+ * Phone numbers are normalized to a {@code long} of their last 10 digits,
+ * so "+79991234567", "79991234567" and "89991234567" are the same number.
+ */
+public class PhoneIndex implements PersonIndex {
+
+    /*
+     * Number of digits in phone number after +7/7/8
+     */
+    private static final int DIGITS = 10;
+
+    /*
+     * Value of number which belongs to several rows, they are kept in namesakes
+     */
+    private static final int SHARED = -1;
+
+    private final LongIntHashMap rows = new LongIntHashMap();
+    private final LongObjectHashMap<IntList> namesakes = new LongObjectHashMap<>();
+
+    /**
+     * Converts russian phone number to number of 10 digits after +7/7/8.
+     * Rules are the same as in {@link com.palyaeva.validation.PersonValidatorImpl#validatePhoneNumber(String)}.
+     *
+     * @param phoneNumber phone number
+     * @return normalized number or -1 if phone number is invalid
+     */
+    public static long normalize(String phoneNumber) {
+        int length = phoneNumber.length();
+        int start;
+        if (length == DIGITS + 2 && phoneNumber.charAt(0) == '+' && phoneNumber.charAt(1) == '7') {
+            start = 2;
+        } else if (length == DIGITS + 1 && (phoneNumber.charAt(0) == '7' || phoneNumber.charAt(0) == '8')) {
+            start = 1;
+        } else {
+            return -1;
+        }
+        long number = 0;
+        for (int i = start; i < length; i++) {
+            char digit = phoneNumber.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            number = number * 10 + (digit - '0');
+        }
+        return number;
+    }
+
+    @Override
+    public void add(int row, Person person) {
+        long number = normalize(person.getPhoneNumber());
+        if (number < 0) {
+            return;
+        }
+        int current = rows.get(number);
+        if (current == LongIntHashMap.NO_VALUE) {
+            rows.put(number, row);
+        } else if (current == SHARED) {
+            namesakes.get(number).add(row);
+        } else {
+            IntList shared = new IntList(2);
+            shared.add(current);
+            shared.add(row);
+            namesakes.put(number, shared);
+            rows.put(number, SHARED);
+        }
+    }
+
+    @Override
+    public void remove(int row, Person person) {
+        long number = normalize(person.getPhoneNumber());
+        int current = number < 0 ? LongIntHashMap.NO_VALUE : rows.get(number);
+        if (current == row) {
+            rows.remove(number);
+        } else if (current == SHARED) {
+            IntList shared = namesakes.get(number);
+            int index = shared.indexOfSorted(row);
+            if (index < 0) {
+                return;
+            }
+            shared.removeAt(index);
+            if (shared.size() == 1) {
+                rows.put(number, shared.get(0));
+                namesakes.remove(number);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        rows.clear();
+        namesakes.clear();
+    }
+
+    /**
+     * Finds rows with given phone number in any of formats +7/7/8
+     *
+     * @param phoneNumber phone number
+     * @return found rows in increasing order
+     */
+    public IntList find(String phoneNumber) {
+        long number = normalize(phoneNumber);
+        int found = number < 0 ? LongIntHashMap.NO_VALUE : rows.get(number);
+        if (found == SHARED) {
+            IntList shared = namesakes.get(number);
+            IntList copy = new IntList(shared.size());
+            for (int i = 0; i < shared.size(); i++) {
+                copy.add(shared.get(i));
+            }
+            return copy;
+        }
+        IntList result = new IntList(1);
+        if (found != LongIntHashMap.NO_VALUE) {
+            result.add(found);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,255 @@
+package com.palyaeva.index;
+
+import com.palyaeva.entity.Person;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Index for approximate search by name: name is found if it has a few typos
+ * or if it sounds the same, in Cyrillic or in Latin letters. Names are compared in their
+ * {@link NamePhonetics#transliterate(String) transliterated} form, so "Sydorov" finds "Sidorov" and Cyrillic "Sidorov".
+ * <p>
+ * Every distinct transliterated name is a word with its rows. Words are kept in two structures:
+ * <ul>
+ * <li>BK-tree by edit (Levenshtein) distance. Child of word is in the branch of its distance to the word,
+ * so by triangle inequality search goes only to branches whose distance differs from the distance
+ * of the query by no more than the allowed number of typos</li>
+ * <li>hash map of {@link NamePhonetics#key(String) phonetic keys}, words with the same key are in one chain</li>
+ * </ul>
+ * Word of added name is found by hash map of words, so the tree grows only when a new name is added.
+ * So search computes distance only to a part of distinct names and never scans the rows.
+ * <p>
+ * As in {@link NGramIndex}, rows are only appended to words. Deleted rows stay there
+ * and are skipped by search until rows are renumbered and the index is filled again.
+ */
+public class SimilarNameIndex implements PersonIndex {
+
+    private final Function<Person, String> nameGetter;
+    private final IntFunction<String> rowName;
+    private final IntPredicate isLive;
+
+    private final Map<String, Word> words = new HashMap<>();
+    private final LongObjectHashMap<Word> wordsByKey = new LongObjectHashMap<>();
+    private Word root;
+
+    /**
+     * @param nameGetter indexed name of person, for example {@code Person::getLastName}
+     * @param rowName    indexed name of person in given row
+     * @param isLive     checks that row is not deleted
+     */
+    public SimilarNameIndex(Function<Person, String> nameGetter, IntFunction<String> rowName, IntPredicate isLive) {
+        this.nameGetter = nameGetter;
+        this.rowName = rowName;
+        this.isLive = isLive;
+    }
+
+    /**
+     * Number of typos which are allowed in name of given length:
+     * none in 3 letters, one in up to 6 letters and two in longer names
+     *
+     * @param length length of transliterated name
+     * @return maximum edit distance
+     */
+    public static int maxDistance(int length) {
+        return length <= 3 ? 0 : length <= 6 ? 1 : 2;
+    }
+
+    @Override
+    public void add(int row, Person person) {
+        String name = NamePhonetics.transliterate(nameGetter.apply(person));
+        Word word = words.get(name);
+        if (word != null) {
+            word.add(row);
+            return;
+        }
+        word = new Word(name, row);
+        words.put(name, word);
+        long key = NamePhonetics.latinKey(name);
+        word.nextSound = wordsByKey.get(key);
+        wordsByKey.put(key, word);
+        insert(word);
+    }
+
+    /**
+     * Deleted row is skipped by search, so nothing is changed
+     */
+    @Override
+    public void remove(int row, Person person) {
+    }
+
+    @Override
+    public void clear() {
+        words.clear();
+        wordsByKey.clear();
+        root = null;
+    }
+
+    /**
+     * Finds rows whose name is within {@link #maxDistance(int)} typos from query or sounds the same
+     *
+     * @param query name
+     * @param rows  number of rows
+     * @return found rows in increasing order
+     */
+    public IntList find(String query, int rows) {
+        BitSet found = new BitSet(rows);
+        for (Word word : words(query)) {
+            word.addRows(found);
+        }
+        IntList result = new IntList(found.cardinality());
+        for (int row = found.nextSetBit(0); row >= 0; row = found.nextSetBit(row + 1)) {
+            if (isLive.test(row)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates check of a single row for the same query as {@link #find(String, int)}
+     *
+     * @param query name
+     * @return predicate which is true for live and deleted rows whose name is similar to query
+     */
+    public IntPredicate matcher(String query) {
+        String latin = NamePhonetics.transliterate(query);
+        long key = NamePhonetics.latinKey(latin);
+        int maxDistance = maxDistance(latin.length());
+        char[] letters = latin.toCharArray();
+        int[] buffer = new int[letters.length + 1];
+        return row -> {
+            String name = NamePhonetics.transliterate(rowName.apply(row));
+            return NamePhonetics.latinKey(name) == key || distance(letters, name.toCharArray(), buffer) <= maxDistance;
+        };
+    }
+
+    /*
+     * Words within allowed distance from the tree and words with the same key from the chain
+     */
+    private List<Word> words(String query) {
+        String latin = NamePhonetics.transliterate(query);
+        long key = NamePhonetics.latinKey(latin);
+        int maxDistance = maxDistance(latin.length());
+        List<Word> found = new ArrayList<>();
+        for (Word word = wordsByKey.get(key); word != null; word = word.nextSound) {
+            found.add(word);
+        }
+        if (root == null) {
+            return found;
+        }
+        List<Word> pending = new ArrayList<>();
+        pending.add(root);
+        char[] letters = latin.toCharArray();
+        int[] buffer = new int[letters.length + 1];
+        while (!pending.isEmpty()) {
+            Word word = pending.remove(pending.size() - 1);
+            int distance = distance(letters, word.letters, buffer);
+            // words with the same key are already found
+            if (distance <= maxDistance && NamePhonetics.latinKey(word.name) != key) {
+                found.add(word);
+            }
+            for (Word child = word.firstChild; child != null; child = child.nextSibling) {
+                if (Math.abs(child.distance - distance) <= maxDistance) {
+                    pending.add(child);
+                }
+            }
+        }
+        return found;
+    }
+
+    private void insert(Word added) {
+        if (root == null) {
+            root = added;
+            return;
+        }
+        int[] buffer = new int[added.letters.length + 1];
+        Word word = root;
+        while (true) {
+            int distance = distance(added.letters, word.letters, buffer);
+            Word child = word.firstChild;
+            while (child != null && child.distance != distance) {
+                child = child.nextSibling;
+            }
+            if (child == null) {
+                added.distance = distance;
+                added.nextSibling = word.firstChild;
+                word.firstChild = added;
+                return;
+            }
+            word = child;
+        }
+    }
+
+    /*
+     * Levenshtein distance by one row of dynamic programming, buffer has length of the first word + 1
+     */
+    private static int distance(char[] first, char[] second, int[] buffer) {
+        for (int i = 0; i <= first.length; i++) {
+            buffer[i] = i;
+        }
+        for (int j = 1; j <= second.length; j++) {
+            int diagonal = buffer[0];
+            buffer[0] = j;
+            char letter = second[j - 1];
+            for (int i = 1; i <= first.length; i++) {
+                int above = buffer[i];
+                int replaced = diagonal + (first[i - 1] == letter ? 0 : 1);
+                buffer[i] = Math.min(replaced, Math.min(above, buffer[i - 1]) + 1);
+                diagonal = above;
+            }
+        }
+        return buffer[first.length];
+    }
+
+    /**
+     * Distinct transliterated name with its rows, node of BK-tree and of chain of phonetic key
+     */
+    private static final class Word {
+        private final String name;
+        /*
+         * Letters of name for computing of distance without checks of String.charAt
+         */
+        private final char[] letters;
+        /*
+         * The first row is kept in place, because most names belong to a single row
+         */
+        private final int row;
+        private IntList moreRows;
+        /*
+         * Distance to parent in the tree, children of one parent have different distances
+         */
+        private int distance;
+        private Word firstChild;
+        private Word nextSibling;
+        private Word nextSound;
+
+        private Word(String name, int row) {
+            this.name = name;
+            this.letters = name.toCharArray();
+            this.row = row;
+        }
+
+        private void add(int added) {
+            if (moreRows == null) {
+                moreRows = new IntList(1);
+            }
+            moreRows.add(added);
+        }
+
+        private void addRows(BitSet rows) {
+            rows.set(row);
+            if (moreRows != null) {
+                for (int i = 0; i < moreRows.size(); i++) {
+                    rows.set(moreRows.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.palyaeva.index;
+
+/**
+ * Index which keeps rows of notes in some order.
+ * Order is maintained on every added and deleted note,
+ * so sorted notes can be shown without sorting the list of notes.
+ */
+public interface SortedView extends PersonIndex {
+
+    /**
+     * @return number of rows in view
+     */
+    int size();
+
+    /**
+     * Returns rows from given position in sorted order
+     *
+     * @param offset number of skipped rows
+     * @param limit  maximum number of returned rows
+     * @return rows of page
+     */
+    int[] page(int offset, int limit);
+}
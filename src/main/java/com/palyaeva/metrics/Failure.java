@@ -0,0 +1,23 @@
+package com.palyaeva.metrics;
+
+/**
+ * Kinds of problems which are printed to {@code System.err} and counted by {@link Metrics}
+ */
+public enum Failure {
+    /**
+     * Data file, journal or imported file can't be read
+     */
+    READ_FILE,
+    /**
+     * Data file, journal or exported file can't be written
+     */
+    WRITE_FILE,
+    /**
+     * Data file is damaged or has unknown format
+     */
+    BAD_FILE,
+    /**
+     * HTTP request failed with internal error
+     */
+    REQUEST
+}
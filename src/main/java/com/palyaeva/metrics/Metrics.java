@@ -0,0 +1,297 @@
+package com.palyaeva.metrics;
+
+import com.palyaeva.validation.ValidationError;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Built-in metrics of the notebook: duration and throughput of loading, saving and import,
+ * latency of searches, rejected records by broken rule, problems, size of the store and lag of its saving.
+ * <p>
+ * Metrics are turned on by system property {@code -Dnotebook.metrics=true}.
+ * The flag is a constant, so when metrics are off every method returns at once,
+ * durations are not measured and JIT compiler removes the calls.
+ * Counters are {@link LongAdder}s and {@link LatencyHistogram}s, so threads don't wait for each other.
+ * <p>
+ * {@link #expose()} registers JMX beans and starts a dump of {@link #report()} to {@code System.err}
+ * every {@code notebook.metrics.interval} seconds (60 by default, 0 turns the dump off).
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("notebook.metrics");
+
+    static final String NOTEBOOK_NAME = "com.palyaeva:type=Notebook";
+    static final String OPERATION_NAME = "com.palyaeva:type=Operation,name=";
+
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+    private static final double NANOS_IN_MILLI = 1_000_000.0;
+
+    private static final LatencyHistogram[] durations = new LatencyHistogram[Operation.values().length];
+    private static final LongAdder[] records = adders(Operation.values().length);
+    private static final LongAdder[] rejected = adders(ValidationError.values().length);
+    private static final LongAdder[] failures = adders(Failure.values().length);
+
+    private static volatile IntSupplier storeSize = () -> -1;
+    private static volatile LongSupplier saveLag = () -> -1;
+    private static boolean isExposed;
+
+    static {
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = new LatencyHistogram();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Starts measuring of operation
+     *
+     * @return start time for {@link #record(Operation, long, int)}, 0 if metrics are off
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param operation finished operation
+     * @param start     value of {@link #start()} before operation
+     */
+    public static void record(Operation operation, long start) {
+        record(operation, start, 0);
+    }
+
+    /**
+     * @param operation finished operation
+     * @param start     value of {@link #start()} before operation
+     * @param count     number of processed records
+     */
+    public static void record(Operation operation, long start, int count) {
+        if (!ENABLED) {
+            return;
+        }
+        durations[operation.ordinal()].record(System.nanoTime() - start);
+        if (count > 0) {
+            records[operation.ordinal()].add(count);
+        }
+    }
+
+    /**
+     * Counts loaded or imported record which was skipped
+     *
+     * @param error broken rule
+     */
+    public static void rejected(ValidationError error) {
+        if (ENABLED) {
+            rejected[error.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Counts problem which was printed to {@code System.err}
+     *
+     * @param failure kind of problem
+     */
+    public static void failed(Failure failure) {
+        if (ENABLED) {
+            failures[failure.ordinal()].increment();
+        }
+    }
+
+    /**
+     * @param size number of notes of the store, it is called only when metrics are read
+     */
+    public static void storeSize(IntSupplier size) {
+        if (ENABLED) {
+            storeSize = size;
+        }
+    }
+
+    /**
+     * @param lag milliseconds since the oldest change which is not saved, it is called only when metrics are read
+     */
+    public static void saveLag(LongSupplier lag) {
+        if (ENABLED) {
+            saveLag = lag;
+        }
+    }
+
+    /**
+     * Registers JMX beans and starts periodic dump of metrics.
+     * Does nothing if metrics are off or already exposed.
+     */
+    public static synchronized void expose() {
+        if (!ENABLED || isExposed) {
+            return;
+        }
+        isExposed = true;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new NotebookMetrics(), new ObjectName(NOTEBOOK_NAME));
+            for (Operation operation : Operation.values()) {
+                server.registerMBean(new OperationMetrics(operation),
+                        new ObjectName(OPERATION_NAME + operation.name().toLowerCase(Locale.ROOT)));
+            }
+        } catch (JMException exception) {
+            System.err.println("Problem occurred while registering metrics: " + exception.getMessage());
+        }
+        long interval = Long.getLong("notebook.metrics.interval", DEFAULT_INTERVAL_SECONDS);
+        if (interval > 0) {
+            ScheduledExecutorService dump = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dump.scheduleAtFixedRate(() -> System.err.print(report()), interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return text with all metrics, one line per operation
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder(512);
+        report.append("Metrics: store size ").append(storeSize.getAsInt())
+                .append(", save lag ").append(saveLag.getAsLong()).append(" ms\n");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = durations[operation.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.ROOT,
+                    "  %s: count %d, mean %.3f ms, median %.3f ms, 99%% %.3f ms, max %.3f ms",
+                    operation.name().toLowerCase(Locale.ROOT), histogram.getCount(),
+                    histogram.getMeanNanos() / NANOS_IN_MILLI, histogram.getPercentileNanos(0.5) / NANOS_IN_MILLI,
+                    histogram.getPercentileNanos(0.99) / NANOS_IN_MILLI, histogram.getMaxNanos() / NANOS_IN_MILLI));
+            long count = records[operation.ordinal()].sum();
+            if (count > 0) {
+                report.append(", records ").append(count)
+                        .append(", ").append(recordsPerSecond(operation)).append(" records/s");
+            }
+            report.append('\n');
+        }
+        appendCounters(report, "rejected records", rejectedRecords());
+        appendCounters(report, "failures", failures());
+        return report.toString();
+    }
+
+    private static void appendCounters(StringBuilder report, String title, Map<String, Long> counters) {
+        if (!counters.isEmpty()) {
+            report.append("  ").append(title).append(": ").append(counters).append('\n');
+        }
+    }
+
+    private static long recordsPerSecond(Operation operation) {
+        long nanos = durations[operation.ordinal()].getTotalNanos();
+        return nanos == 0 ? 0 : (long) (records[operation.ordinal()].sum() * 1_000_000_000.0 / nanos);
+    }
+
+    private static Map<String, Long> rejectedRecords() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (ValidationError error : ValidationError.values()) {
+            long count = rejected[error.ordinal()].sum();
+            if (count > 0) {
+                counters.put(error.name().toLowerCase(Locale.ROOT), count);
+            }
+        }
+        return counters;
+    }
+
+    private static Map<String, Long> failures() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (Failure failure : Failure.values()) {
+            long count = failures[failure.ordinal()].sum();
+            if (count > 0) {
+                counters.put(failure.name().toLowerCase(Locale.ROOT), count);
+            }
+        }
+        return counters;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static final class NotebookMetrics implements NotebookMetricsMXBean {
+        @Override
+        public int getStoreSize() {
+            return storeSize.getAsInt();
+        }
+
+        @Override
+        public long getSaveLagMillis() {
+            return saveLag.getAsLong();
+        }
+
+        @Override
+        public Map<String, Long> getRejectedRecords() {
+            return rejectedRecords();
+        }
+
+        @Override
+        public Map<String, Long> getFailures() {
+            return failures();
+        }
+    }
+
+    private static final class OperationMetrics implements OperationMetricsMXBean {
+        private final Operation operation;
+        private final LatencyHistogram histogram;
+
+        private OperationMetrics(Operation operation) {
+            this.operation = operation;
+            this.histogram = durations[operation.ordinal()];
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public long getRecords() {
+            return records[operation.ordinal()].sum();
+        }
+
+        @Override
+        public long getRecordsPerSecond() {
+            return recordsPerSecond(operation);
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return histogram.getMeanNanos() / NANOS_IN_MILLI;
+        }
+
+        @Override
+        public double getMedianMillis() {
+            return histogram.getPercentileNanos(0.5) / NANOS_IN_MILLI;
+        }
+
+        @Override
+        public double getPercentile99Millis() {
+            return histogram.getPercentileNanos(0.99) / NANOS_IN_MILLI;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return histogram.getMaxNanos() / NANOS_IN_MILLI;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.palyaeva.metrics;
+
+import java.util.Map;
+
+/**
+ * Metrics of the notebook in JMX, registered as {@value Metrics#NOTEBOOK_NAME}
+ */
+public interface NotebookMetricsMXBean {
+
+    /**
+     * @return number of notes in the store, -1 if the store is not loaded yet
+     */
+    int getStoreSize();
+
+    /**
+     * @return milliseconds since the oldest change which is not saved to data file, -1 if the store has no file
+     */
+    long getSaveLagMillis();
+
+    /**
+     * @return number of loaded and imported records which were skipped by every broken rule
+     */
+    Map<String, Long> getRejectedRecords();
+
+    /**
+     * @return number of problems of every kind
+     */
+    Map<String, Long> getFailures();
+}
@@ -0,0 +1,34 @@
+package com.palyaeva.metrics;
+
+/**
+ * Measured operations of the notebook
+ */
+public enum Operation {
+    /**
+     * Loading of data file and journal into the store
+     */
+    LOAD,
+    /**
+     * Saving of all notes into a new data file
+     */
+    SAVE,
+    /**
+     * Bulk import of CSV or NDJSON file
+     */
+    IMPORT,
+    SEARCH_BY_FIRST_NAME,
+    SEARCH_BY_LAST_NAME,
+    SEARCH_BY_PHONE_NUMBER,
+    /**
+     * Search by first or last name with typos or in other letters
+     */
+    SEARCH_BY_SIMILAR_NAME,
+    /**
+     * Search by several fields at once
+     */
+    SEARCH_BY_QUERY,
+    /**
+     * Page of notes sorted by last name or year of birth
+     */
+    SORTED_PAGE
+}
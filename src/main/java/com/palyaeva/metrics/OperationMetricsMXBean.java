@@ -0,0 +1,27 @@
+package com.palyaeva.metrics;
+
+/**
+ * Metrics of one {@link Operation} in JMX, registered as {@value Metrics#OPERATION_NAME}{@code <operation>}
+ */
+public interface OperationMetricsMXBean {
+
+    long getCount();
+
+    /**
+     * @return number of records which were loaded, saved or imported, 0 for other operations
+     */
+    long getRecords();
+
+    /**
+     * @return records per second of total duration of operation
+     */
+    long getRecordsPerSecond();
+
+    double getMeanMillis();
+
+    double getMedianMillis();
+
+    double getPercentile99Millis();
+
+    double getMaxMillis();
+}
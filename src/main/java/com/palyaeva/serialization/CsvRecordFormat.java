@@ -0,0 +1,171 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+
+import java.util.Arrays;
+
+/**
+ * Comma-separated values with header, as in RFC 4180.
+ * Columns are found by names in header, so they can go in any order,
+ * and unknown columns are ignored. Empty value is the same as missing field.
+ * Quoted values can contain commas and quotes, but not line breaks,
+ * because every note is one line.
+ */
+final class CsvRecordFormat implements RecordFormat {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    /*
+     * Index of field for every column or -1 for unknown columns
+     */
+    private int[] columns = {ID, POST, FIRST_NAME, LAST_NAME, BIRTH_YEAR, PHONE_NUMBER, MANAGER, DEPARTMENT};
+
+    @Override
+    public String header() {
+        return String.join(String.valueOf(SEPARATOR), FIELDS);
+    }
+
+    @Override
+    public void readHeader(String line) {
+        String[] names = split(line, Integer.MAX_VALUE);
+        if (names == null) {
+            throw new IllegalArgumentException("Header is malformed");
+        }
+        int[] header = new int[names.length];
+        boolean[] found = new boolean[FIELDS.length];
+        boolean isKnown = false;
+        for (int column = 0; column < names.length; column++) {
+            int field = names[column] == null ? -1 : Arrays.asList(FIELDS).indexOf(names[column].trim());
+            if (field >= 0 && found[field]) {
+                throw new IllegalArgumentException("Column " + FIELDS[field] + " is repeated");
+            }
+            if (field >= 0) {
+                found[field] = true;
+                isKnown = true;
+            }
+            header[column] = field;
+        }
+        if (!isKnown) {
+            throw new IllegalArgumentException("Header has no known columns, expected: " + header());
+        }
+        columns = header;
+    }
+
+    @Override
+    public String[] parse(String line) {
+        String[] values = split(line, columns.length);
+        if (values == null) {
+            return null;
+        }
+        String[] fields = new String[FIELDS.length];
+        for (int column = 0; column < values.length; column++) {
+            if (columns[column] >= 0) {
+                fields[columns[column]] = values[column];
+            }
+        }
+        return fields;
+    }
+
+    @Override
+    public void write(Person person, StringBuilder line) {
+        line.append(person.getId()).append(SEPARATOR);
+        line.append(person instanceof Manager ? MANAGER_POST : EMPLOYEE_POST).append(SEPARATOR);
+        appendValue(line, person.getFirstName());
+        line.append(SEPARATOR);
+        appendValue(line, person.getLastName());
+        line.append(SEPARATOR).append(person.getBirthYear()).append(SEPARATOR);
+        appendValue(line, person.getPhoneNumber());
+        line.append(SEPARATOR);
+        if (person instanceof Employee) {
+            appendValue(line, ((Employee) person).getManager());
+        }
+        line.append(SEPARATOR);
+        if (person instanceof Manager) {
+            appendValue(line, ((Manager) person).getDepartment());
+        }
+    }
+
+    /**
+     * Splits line into values
+     *
+     * @param line       line of file
+     * @param maxColumns number of columns in header, line with more columns is malformed
+     * @return values, empty values are null, or null if line is malformed
+     */
+    private static String[] split(String line, int maxColumns) {
+        String[] values = new String[Math.min(maxColumns, 16)];
+        int count = 0;
+        int position = 0;
+        StringBuilder quoted = null;
+        while (true) {
+            if (count == maxColumns) {
+                return null;
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            String value;
+            if (position < line.length() && line.charAt(position) == QUOTE) {
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                }
+                quoted.setLength(0);
+                position++;
+                while (true) {
+                    if (position >= line.length()) {
+                        return null;
+                    }
+                    char symbol = line.charAt(position++);
+                    if (symbol != QUOTE) {
+                        quoted.append(symbol);
+                    } else if (position < line.length() && line.charAt(position) == QUOTE) {
+                        quoted.append(QUOTE);
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                if (position < line.length() && line.charAt(position) != SEPARATOR) {
+                    return null;
+                }
+                value = quoted.toString();
+            } else {
+                int end = line.indexOf(SEPARATOR, position);
+                if (end < 0) {
+                    end = line.length();
+                }
+                value = line.substring(position, end);
+                position = end;
+            }
+            values[count++] = value.isEmpty() ? null : value;
+            if (position >= line.length()) {
+                return Arrays.copyOf(values, count);
+            }
+            position++;
+        }
+    }
+
+    private static void appendValue(StringBuilder line, String value) {
+        boolean isQuoted = false;
+        for (int i = 0; i < value.length() && !isQuoted; i++) {
+            char symbol = value.charAt(i);
+            isQuoted = symbol == SEPARATOR || symbol == QUOTE || symbol == '\n' || symbol == '\r';
+        }
+        if (!isQuoted) {
+            line.append(value);
+            return;
+        }
+        line.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            if (symbol == QUOTE) {
+                line.append(QUOTE);
+            }
+            line.append(symbol);
+        }
+        line.append(QUOTE);
+    }
+}
@@ -0,0 +1,110 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.validation.ValidationError;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of bulk import: numbers of imported and rejected lines, time and throughput.
+ * Rejected lines are counted by broken rule, and a few of them are kept as examples.
+ */
+public class ImportReport {
+
+    private final long start = System.nanoTime();
+    private final int maxExamples;
+    private final List<String> examples = new ArrayList<>();
+    private final int[] rejected = new int[ValidationError.values().length];
+    private long elapsedNanos;
+    private int imported;
+    private int malformed;
+
+    ImportReport(int maxExamples) {
+        this.maxExamples = maxExamples;
+    }
+
+    void imported() {
+        imported++;
+    }
+
+    void rejected(int line, ValidationError error, String message) {
+        rejected[error.ordinal()]++;
+        example(line, message);
+    }
+
+    void malformed(int line, String message) {
+        malformed++;
+        example(line, message);
+    }
+
+    ImportReport finish() {
+        elapsedNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    private void example(int line, String message) {
+        if (examples.size() < maxExamples) {
+            examples.add("line " + line + ": " + message);
+        }
+    }
+
+    /**
+     * @return number of added notes
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * @return number of lines which are not notes at all
+     */
+    public int getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @param error broken rule
+     * @return number of lines rejected because of given rule
+     */
+    public int getRejected(ValidationError error) {
+        return rejected[error.ordinal()];
+    }
+
+    /**
+     * @return number of rejected and malformed lines
+     */
+    public int getRejected() {
+        int count = malformed;
+        for (int value : rejected) {
+            count += value;
+        }
+        return count;
+    }
+
+    /**
+     * @return notes per second, counting both imported and rejected lines
+     */
+    public long getThroughput() {
+        return elapsedNanos == 0 ? 0 : (imported + getRejected()) * 1_000_000_000L / elapsedNanos;
+    }
+
+    public void print(PrintStream stream) {
+        stream.println("Imported: " + imported + ", rejected: " + getRejected()
+                + ", time: " + elapsedNanos / 1_000_000 + " ms, " + getThroughput() + " lines/s");
+        if (malformed > 0) {
+            stream.println("  malformed lines: " + malformed);
+        }
+        for (ValidationError error : ValidationError.values()) {
+            if (rejected[error.ordinal()] > 0) {
+                stream.println("  " + error.name().toLowerCase() + ": " + rejected[error.ordinal()]);
+            }
+        }
+        if (!examples.isEmpty()) {
+            stream.println("First rejected lines:");
+            for (String example : examples) {
+                stream.println("  " + example);
+            }
+        }
+    }
+}
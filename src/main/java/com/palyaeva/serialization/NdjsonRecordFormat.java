@@ -0,0 +1,224 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Newline-delimited JSON: every line is a flat JSON object, for example
+ * {@code {"id":1,"post":"manager","firstName":"Ivan",...,"department":"IT"}}.
+ * Values can be strings, numbers or null, unknown keys are ignored.
+ * Nested objects and arrays make the line malformed.
+ */
+final class NdjsonRecordFormat implements RecordFormat {
+
+    private static final List<String> FIELD_NAMES = Arrays.asList(FIELDS);
+
+    @Override
+    public String header() {
+        return null;
+    }
+
+    @Override
+    public void readHeader(String line) {
+        throw new UnsupportedOperationException("NDJSON has no header");
+    }
+
+    @Override
+    public String[] parse(String line) {
+        Parser parser = new Parser(line);
+        try {
+            return parser.object();
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    @Override
+    public void write(Person person, StringBuilder line) {
+        line.append("{\"id\":").append(person.getId());
+        line.append(",\"post\":\"").append(person instanceof Manager ? MANAGER_POST : EMPLOYEE_POST).append('"');
+        line.append(",\"firstName\":");
+        appendString(line, person.getFirstName());
+        line.append(",\"lastName\":");
+        appendString(line, person.getLastName());
+        line.append(",\"birthYear\":").append(person.getBirthYear());
+        line.append(",\"phoneNumber\":");
+        appendString(line, person.getPhoneNumber());
+        if (person instanceof Employee) {
+            line.append(",\"manager\":");
+            appendString(line, ((Employee) person).getManager());
+        } else if (person instanceof Manager) {
+            line.append(",\"department\":");
+            appendString(line, ((Manager) person).getDepartment());
+        }
+        line.append('}');
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            switch (symbol) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (symbol < 0x20) {
+                        line.append(String.format("\\u%04x", (int) symbol));
+                    } else {
+                        line.append(symbol);
+                    }
+                    break;
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Parser of one flat object, throws {@link IllegalArgumentException} if line is malformed
+     */
+    private static final class Parser {
+        private final String line;
+        private int position;
+
+        private Parser(String line) {
+            this.line = line;
+        }
+
+        private String[] object() {
+            String[] fields = new String[FIELDS.length];
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    String key = string();
+                    expect(':');
+                    String value = value();
+                    int field = FIELD_NAMES.indexOf(key);
+                    if (field >= 0) {
+                        fields[field] = value;
+                    }
+                } while (next() == ',');
+                position--;
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw new IllegalArgumentException("Unexpected text after object");
+            }
+            return fields;
+        }
+
+        /*
+         * Numbers and literals are returned as text, null is returned as null
+         */
+        private String value() {
+            char symbol = peek();
+            if (symbol == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < line.length() && ",}] \t".indexOf(line.charAt(position)) < 0) {
+                position++;
+            }
+            String value = line.substring(start, position);
+            if (value.isEmpty() || value.charAt(0) == '{' || value.charAt(0) == '[') {
+                throw new IllegalArgumentException("Unsupported value");
+            }
+            return value.equals("null") ? null : value;
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = null;
+            int start = position;
+            while (true) {
+                if (position >= line.length()) {
+                    throw new IllegalArgumentException("Unterminated string");
+                }
+                char symbol = line.charAt(position++);
+                if (symbol == '"') {
+                    return value == null ? line.substring(start, position - 1) : value.toString();
+                }
+                if (symbol != '\\') {
+                    if (value != null) {
+                        value.append(symbol);
+                    }
+                    continue;
+                }
+                if (value == null) {
+                    value = new StringBuilder(line.substring(start, position - 1));
+                }
+                if (position >= line.length()) {
+                    throw new IllegalArgumentException("Unterminated string");
+                }
+                char escaped = line.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > line.length()) {
+                            throw new IllegalArgumentException("Invalid escape");
+                        }
+                        value.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                        break;
+                }
+            }
+        }
+
+        /*
+         * Skips spaces and takes the next symbol, 0 at the end of line
+         */
+        private char next() {
+            char symbol = peek();
+            position++;
+            return symbol;
+        }
+
+        private char peek() {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            return position < line.length() ? line.charAt(position) : 0;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw new IllegalArgumentException("Expected " + expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerDirectory;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.validation.PersonValidator;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link PersonSerializer} with compact binary file format.
+ * File is read through memory-mapped {@link FileChannel}.
+ * <p>
+ * Layout of file (all numbers are big-endian):
+ * <pre>
+ * int    magic number "PNBK"
+ * short  format version
+ * int    number of strings in dictionary
+ * int    number of managers
+ * int    number of employees
+ * long   largest id of notes, or -1 if ids are not unique positive numbers and are given when notes are loaded
+ * int    length of strings in bytes
+ *        offsets of strings: int per string, from the start of strings
+ *        strings: UTF-8 bytes of all strings one after another
+ *        managers: long id, first name, last name (dictionary indexes), short birth year,
+ *                  phone number (dictionary index), department (dictionary index)
+ *        employees: long id, first name, last name, short birth year, phone number, manager
+ * </pre>
+ * Every string is written once to the dictionary and records refer to it by index,
+ * so repeated names, departments and managers take 4 bytes per record.
+ * All counts are in the header and records have fixed size, so any note can be read
+ * by its position, see {@link PersonRecordFile}. Largest id tells that ids of notes in file are the ids
+ * they get after loading, so notes which are read by position have the same ids.
+ */
+public class PersonBinarySerializer implements PersonSerializer {
+
+    static final int MAGIC = 0x504E424B;
+    static final short VERSION = 4;
+
+    /*
+     * Size of record: long id, four dictionary indexes and short birth year
+     */
+    static final int RECORD_SIZE = 8 + 4 * 4 + 2;
+
+    private final PersonValidator validator;
+    private final PersonFactory factory;
+
+    public PersonBinarySerializer(PersonValidator validator) {
+        this.validator = validator;
+        this.factory = new PersonFactory(validator);
+    }
+
+    /**
+     * Saves given list of persons to binary file specified by file path.
+     *
+     * @param persons  list of Persons
+     * @param filePath path to data file
+     */
+    @Override
+    public void serialize(List<Person> persons, String filePath) {
+        List<Manager> managers = new ArrayList<>();
+        List<Employee> employees = new ArrayList<>();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        for (Person person : persons) {
+            if (person instanceof Manager) {
+                managers.add((Manager) person);
+                addString(((Manager) person).getDepartment(), dictionary, strings);
+            } else if (person instanceof Employee) {
+                employees.add((Employee) person);
+                addString(((Employee) person).getManager(), dictionary, strings);
+            } else {
+                System.err.println("Unknown type: " + person.getClass().getName());
+                continue;
+            }
+            addString(person.getFirstName(), dictionary, strings);
+            addString(person.getLastName(), dictionary, strings);
+            addString(person.getPhoneNumber(), dictionary, strings);
+        }
+
+        try {
+            SerializerFiles.replace(filePath, stream -> {
+                DataOutputStream output = new DataOutputStream(stream);
+                byte[][] bytes = new byte[strings.size()][];
+                int length = 0;
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                    length += bytes[i].length;
+                }
+                output.writeInt(MAGIC);
+                output.writeShort(VERSION);
+                output.writeInt(strings.size());
+                output.writeInt(managers.size());
+                output.writeInt(employees.size());
+                output.writeLong(maxId(managers, employees));
+                output.writeInt(length);
+
+                int offset = 0;
+                for (byte[] string : bytes) {
+                    output.writeInt(offset);
+                    offset += string.length;
+                }
+                for (byte[] string : bytes) {
+                    output.write(string);
+                }
+
+                for (Manager manager : managers) {
+                    writePerson(output, manager, dictionary);
+                    output.writeInt(dictionary.get(manager.getDepartment()));
+                }
+                for (Employee employee : employees) {
+                    writePerson(output, employee, dictionary);
+                    output.writeInt(dictionary.get(employee.getManager()));
+                }
+                output.flush();
+            });
+        } catch (IOException exception) {
+            System.err.println("Problem occurred when saving file: " + exception.getMessage());
+            Metrics.failed(Failure.WRITE_FILE);
+        }
+    }
+
+    /*
+     * Returns -1 if some note has no id or two notes have the same id
+     */
+    private static long maxId(List<Manager> managers, List<Employee> employees) {
+        long[] ids = new long[managers.size() + employees.size()];
+        for (int i = 0; i < managers.size(); i++) {
+            ids[i] = managers.get(i).getId();
+        }
+        for (int i = 0; i < employees.size(); i++) {
+            ids[managers.size() + i] = employees.get(i).getId();
+        }
+        Arrays.sort(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] <= Person.NO_ID || i > 0 && ids[i] == ids[i - 1]) {
+                return -1;
+            }
+        }
+        return ids.length == 0 ? 0 : ids[ids.length - 1];
+    }
+
+    private static void addString(String string, Map<String, Integer> dictionary, List<String> strings) {
+        if (!dictionary.containsKey(string)) {
+            dictionary.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static void writePerson(DataOutputStream output, Person person,
+                                    Map<String, Integer> dictionary) throws IOException {
+        output.writeLong(person.getId());
+        output.writeInt(dictionary.get(person.getFirstName()));
+        output.writeInt(dictionary.get(person.getLastName()));
+        output.writeShort(person.getBirthYear());
+        output.writeInt(dictionary.get(person.getPhoneNumber()));
+    }
+
+    /**
+     * Loads persons from binary file into list.
+     * Records are validated in the same way as in xml file and invalid records are skipped.
+     *
+     * @param filePath path to data file
+     * @return List of Persons received from file
+     */
+    @Override
+    public List<Person> deserialize(String filePath) {
+        List<Person> personList = new ArrayList<>();
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return personList;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+                System.err.println("Bad binary file: unknown format");
+                Metrics.failed(Failure.BAD_FILE);
+                return personList;
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                System.err.println("Bad binary file: unsupported version " + version);
+                Metrics.failed(Failure.BAD_FILE);
+                return personList;
+            }
+
+            int stringsCount = buffer.getInt();
+            int managersCount = buffer.getInt();
+            int employeesCount = buffer.getInt();
+            // largest id is needed only for reading notes by position
+            buffer.getLong();
+            checkSize(buffer, stringsCount, 4);
+            String[] strings = new String[stringsCount];
+            readStrings(buffer, strings);
+            checkSize(buffer, managersCount, RECORD_SIZE);
+            checkSize(buffer, employeesCount, RECORD_SIZE);
+            checkSize(buffer, (long) managersCount + employeesCount, RECORD_SIZE);
+
+            ManagerDirectory managers = new ManagerDirectory();
+            for (int i = 0; i < managersCount; i++) {
+                Manager manager = readManager(buffer, strings);
+                if (manager != null) {
+                    managers.add(manager);
+                    personList.add(manager);
+                }
+            }
+
+            for (int i = 0; i < employeesCount; i++) {
+                Employee employee = readEmployee(buffer, strings, managers);
+                if (employee != null) {
+                    personList.add(employee);
+                }
+            }
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading file: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException exception) {
+            System.err.println("Bad binary file: file is truncated or damaged");
+            Metrics.failed(Failure.BAD_FILE);
+        }
+        return personList;
+    }
+
+    /**
+     * Opens binary file for reading notes one by one. Only header is read here,
+     * records are checked by the same rules as in {@link #deserialize(String)} when they are read.
+     *
+     * @param filePath  path to data file
+     * @param cacheSize maximum number of read notes which are kept in memory
+     * @return opened file or null if file doesn't exist, is damaged or its notes get other ids after loading
+     */
+    @Override
+    public PersonRecordFile open(String filePath, int cacheSize) {
+        return PersonRecordFile.open(filePath, cacheSize, validator);
+    }
+
+    /*
+     * Reads strings of dictionary, buffer is at the length of strings
+     */
+    private static void readStrings(ByteBuffer buffer, String[] strings) {
+        int length = buffer.getInt();
+        checkSize(buffer, strings.length, 4);
+        int[] offsets = new int[strings.length + 1];
+        for (int i = 0; i < strings.length; i++) {
+            offsets[i] = buffer.getInt();
+        }
+        offsets[strings.length] = length;
+        checkSize(buffer, length, 1);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+    }
+
+    /*
+     * Count of items is read from file, so it is checked before arrays are allocated for them:
+     * negative count or count of items which don't fit in the rest of file means that file is damaged
+     */
+    private static void checkSize(ByteBuffer buffer, long count, int itemSize) {
+        if (count < 0 || count * itemSize > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    private Manager readManager(ByteBuffer buffer, String[] strings) {
+        long id = buffer.getLong();
+        String firstName = strings[buffer.getInt()];
+        String lastName = strings[buffer.getInt()];
+        int birthYear = buffer.getShort();
+        String phoneNumber = strings[buffer.getInt()];
+        String department = strings[buffer.getInt()];
+        return factory.createManager(id, firstName, lastName, birthYear, phoneNumber, department);
+    }
+
+    private Employee readEmployee(ByteBuffer buffer, String[] strings, ManagerDirectory managers) {
+        long id = buffer.getLong();
+        String firstName = strings[buffer.getInt()];
+        String lastName = strings[buffer.getInt()];
+        int birthYear = buffer.getShort();
+        String phoneNumber = strings[buffer.getInt()];
+        String manager = strings[buffer.getInt()];
+        return factory.createEmployee(id, firstName, lastName, birthYear, phoneNumber, manager, managers);
+    }
+}
@@ -0,0 +1,88 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Person;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Bulk export of notes to CSV or NDJSON file, format is chosen by extension
+ * (".csv", ".ndjson" or ".jsonl").
+ * Notes are taken page by page, so they are never all in memory at once.
+ * File is written to a temporary file and renamed over target file when it is complete.
+ */
+public class PersonExporter {
+
+    private static final int PAGE_SIZE = 4096;
+
+    private PersonExporter() {
+    }
+
+    /**
+     * Source of notes for export
+     */
+    @FunctionalInterface
+    public interface PageSource {
+        /**
+         * @param offset number of skipped notes
+         * @param limit  maximum number of returned notes
+         * @return notes of page, empty list after the last note
+         */
+        List<Person> page(int offset, int limit);
+    }
+
+    /**
+     * @param filePath path to file
+     * @return true if format of file is known by its extension
+     */
+    public static boolean isSupported(String filePath) {
+        return RecordFormat.forFile(filePath) != null;
+    }
+
+    /**
+     * Writes all notes of source to file
+     *
+     * @param filePath path to CSV or NDJSON file
+     * @param source   source of notes, for example {@code NotebookStore::page}
+     * @return number of exported notes or -1 if file was not saved
+     */
+    public static int export(String filePath, PageSource source) {
+        RecordFormat format = RecordFormat.forFile(filePath);
+        if (format == null) {
+            System.err.println("Unknown format of file " + filePath + ", expected .csv, .ndjson or .jsonl");
+            return -1;
+        }
+        int[] count = new int[1];
+        try {
+            SerializerFiles.replace(filePath, stream -> {
+                Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+                StringBuilder line = new StringBuilder(128);
+                if (format.header() != null) {
+                    writer.write(format.header());
+                    writer.write('\n');
+                }
+                List<Person> page;
+                while (!(page = source.page(count[0], PAGE_SIZE)).isEmpty()) {
+                    for (Person person : page) {
+                        line.setLength(0);
+                        format.write(person, line);
+                        line.append('\n');
+                        writer.append(line);
+                    }
+                    count[0] += page.size();
+                }
+                writer.flush();
+            });
+        } catch (IOException exception) {
+            System.err.println("Problem occurred when saving file: " + exception.getMessage());
+            Metrics.failed(Failure.WRITE_FILE);
+            return -1;
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,161 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerLookup;
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.ValidationError;
+
+/**
+ * Creates persons from fields of loaded records.
+ * Fields are checked by {@code check...} methods of {@link PersonValidator},
+ * so invalid records are reported and skipped without throwing exceptions.
+ * By default broken rules are printed, bulk import counts them instead.
+ */
+final class PersonFactory {
+
+    private static final String FIRST_NAME = "First name";
+    private static final String LAST_NAME = "Last name";
+
+    /**
+     * Receiver of broken rules of skipped records
+     */
+    @FunctionalInterface
+    interface Rejection {
+        /**
+         * @param error    broken rule
+         * @param nameType "First name" or "Last name" for errors of names, otherwise null
+         */
+        void reject(ValidationError error, String nameType);
+    }
+
+    private final PersonValidator validator;
+    private final Rejection rejection;
+
+    PersonFactory(PersonValidator validator) {
+        this(validator, PersonFactory::print);
+    }
+
+    PersonFactory(PersonValidator validator, Rejection rejection) {
+        this.validator = validator;
+        this.rejection = rejection;
+    }
+
+    /**
+     * @return manager or null if record is invalid
+     */
+    Manager createManager(long id, String firstName, String lastName, String birthYear,
+                          String phoneNumber, String department) {
+        if (checkNames(firstName, lastName) && check(validator.checkBirthYear(birthYear))) {
+            return manager(id, firstName, lastName, Integer.parseInt(birthYear), phoneNumber, department);
+        }
+        return null;
+    }
+
+    /**
+     * @return manager or null if record is invalid
+     */
+    Manager createManager(long id, String firstName, String lastName, int birthYear,
+                          String phoneNumber, String department) {
+        if (checkNames(firstName, lastName) && check(validator.checkBirthYear(birthYear))) {
+            return manager(id, firstName, lastName, birthYear, phoneNumber, department);
+        }
+        return null;
+    }
+
+    /**
+     * @return employee or null if record is invalid or manager is not found
+     */
+    Employee createEmployee(long id, String firstName, String lastName, String birthYear,
+                            String phoneNumber, String manager, ManagerLookup managers) {
+        if (checkNames(firstName, lastName) && check(validator.checkBirthYear(birthYear))) {
+            return employee(id, firstName, lastName, Integer.parseInt(birthYear), phoneNumber, manager, managers);
+        }
+        return null;
+    }
+
+    /**
+     * @return employee or null if record is invalid or manager is not found
+     */
+    Employee createEmployee(long id, String firstName, String lastName, int birthYear,
+                            String phoneNumber, String manager, ManagerLookup managers) {
+        if (checkNames(firstName, lastName) && check(validator.checkBirthYear(birthYear))) {
+            return employee(id, firstName, lastName, birthYear, phoneNumber, manager, managers);
+        }
+        return null;
+    }
+
+    private Manager manager(long id, String firstName, String lastName, int birthYear,
+                            String phoneNumber, String department) {
+        if (check(validator.checkPhoneNumber(phoneNumber)) && check(validator.checkDepartment(department))) {
+            return new Manager(id, firstName, lastName, birthYear, phoneNumber, department);
+        }
+        return null;
+    }
+
+    private Employee employee(long id, String firstName, String lastName, int birthYear,
+                              String phoneNumber, String manager, ManagerLookup managers) {
+        if (check(validator.checkPhoneNumber(phoneNumber)) && check(validator.checkManager(manager, managers))) {
+            return new Employee(id, firstName, lastName, birthYear, phoneNumber, manager);
+        }
+        return null;
+    }
+
+    private boolean checkNames(String firstName, String lastName) {
+        ValidationError error = validator.checkName(firstName);
+        if (error != null) {
+            reject(error, FIRST_NAME);
+            return false;
+        }
+        error = validator.checkName(lastName);
+        if (error != null) {
+            reject(error, LAST_NAME);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean check(ValidationError error) {
+        if (error != null) {
+            reject(error, null);
+            return false;
+        }
+        return true;
+    }
+
+    private void reject(ValidationError error, String nameType) {
+        Metrics.rejected(error);
+        rejection.reject(error, nameType);
+    }
+
+    private static void print(ValidationError error, String nameType) {
+        System.err.println(nameType == null ? error.getMessage() : error.getMessage(nameType));
+    }
+
+    /**
+     * Parses id of loaded record.
+     * Record without valid id is loaded anyway and gets a new id when it is added to the store.
+     *
+     * @return id or {@link Person#NO_ID} if it is missing or invalid
+     */
+    static long id(String value) {
+        if (value == null) {
+            return Person.NO_ID;
+        }
+        try {
+            long id = Long.parseLong(value.trim());
+            return id > 0 ? id : Person.NO_ID;
+        } catch (NumberFormatException exception) {
+            return Person.NO_ID;
+        }
+    }
+
+    /**
+     * @return trimmed value of field or null if field is missing
+     */
+    static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
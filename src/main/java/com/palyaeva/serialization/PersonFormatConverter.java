@@ -0,0 +1,64 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Person;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.PersonValidatorImpl;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Converts data files between xml ({@link PersonXMLSerializer})
+ * and binary ({@link PersonBinarySerializer}) formats.
+ * Format is chosen by file extension: ".xml" or ".bin".
+ * <p>
+ * Usage: {@code PersonFormatConverter <source file> <target file>}
+ */
+public class PersonFormatConverter {
+
+    public static final String XML_EXTENSION = ".xml";
+    public static final String BINARY_EXTENSION = ".bin";
+
+    private PersonFormatConverter() {
+    }
+
+    /**
+     * Chooses serializer by extension of data file
+     *
+     * @param filePath  path to data file
+     * @param validator validator for loaded records
+     * @return binary serializer for ".bin" files and xml serializer in bulk mode for other files
+     */
+    public static PersonSerializer serializerFor(String filePath, PersonValidator validator) {
+        if (filePath.endsWith(BINARY_EXTENSION)) {
+            return new PersonBinarySerializer(validator);
+        }
+        return new PersonXMLStreamSerializer(validator, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads persons from source file and saves them to target file.
+     * Invalid records of source file are skipped.
+     *
+     * @param sourcePath path to source data file
+     * @param targetPath path to target data file
+     * @param validator  validator for loaded records
+     * @return number of converted persons
+     */
+    public static int convert(String sourcePath, String targetPath, PersonValidator validator) {
+        PersonSerializer source = serializerFor(sourcePath, validator);
+        PersonSerializer target = serializerFor(targetPath, validator);
+        List<Person> persons = source.deserialize(sourcePath);
+        target.serialize(persons, targetPath);
+        return persons.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: PersonFormatConverter <source file> <target file>");
+            return;
+        }
+        int count = convert(args[0], args[1], new PersonValidatorImpl());
+        System.out.println(count + " persons were converted");
+    }
+}
@@ -0,0 +1,238 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerLookup;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.metrics.Operation;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.ValidationError;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bulk import of notes from CSV or NDJSON file, format is chosen by extension
+ * (".csv", ".ndjson" or ".jsonl").
+ * <p>
+ * File is read line by line and lines are collected into batches.
+ * Batches are parsed and checked by {@code check...} methods of {@link PersonValidator} in a {@link ForkJoinPool},
+ * then valid persons of every batch are added at once in the order of file.
+ * Only a few batches are in memory at the same time, so file of any size can be imported.
+ * Managers of employees are checked when batch is added, so manager can be earlier in the same file.
+ * <p>
+ * Ids of imported notes are not kept, they get new ids as notes added by hand.
+ */
+public class PersonImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /*
+     * Number of examples of rejected lines in report
+     */
+    private static final int MAX_EXAMPLES = 10;
+
+    /*
+     * Manager's name is checked here only by format, existence of manager is checked by receiver
+     */
+    private static final ManagerLookup ANY_MANAGER = (firstName, lastName) -> true;
+
+    /**
+     * Receiver of imported notes, for example {@code NotebookStore::addAll}
+     */
+    @FunctionalInterface
+    public interface Receiver {
+        /**
+         * @param persons valid persons of one batch
+         * @return broken rule for every rejected person and null for every added one
+         */
+        ValidationError[] addAll(List<Person> persons);
+    }
+
+    private final PersonValidator validator;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    public PersonImporter(PersonValidator validator, ForkJoinPool pool) {
+        this(validator, pool, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param validator validator of imported records
+     * @param pool      pool for checking batches
+     * @param batchSize number of lines in one batch
+     */
+    public PersonImporter(PersonValidator validator, ForkJoinPool pool, int batchSize) {
+        this.validator = validator;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param filePath path to file
+     * @return true if format of file is known by its extension
+     */
+    public static boolean isSupported(String filePath) {
+        return RecordFormat.forFile(filePath) != null;
+    }
+
+    /**
+     * Imports notes from file.
+     * Problems with reading file are printed, and notes which were read before are kept.
+     *
+     * @param filePath path to CSV or NDJSON file
+     * @param receiver receiver of valid notes
+     * @return report of import
+     */
+    public ImportReport importFile(String filePath, Receiver receiver) {
+        ImportReport report = new ImportReport(MAX_EXAMPLES);
+        long start = Metrics.start();
+        RecordFormat format = RecordFormat.forFile(filePath);
+        if (format == null) {
+            System.err.println("Unknown format of file " + filePath + ", expected .csv, .ndjson or .jsonl");
+            return report;
+        }
+        Deque<ForkJoinTask<Batch>> tasks = new ArrayDeque<>();
+        int maxTasks = pool.getParallelism() * 2;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(Paths.get(filePath)), StandardCharsets.UTF_8), 1 << 16)) {
+            int lineNumber = 0;
+            if (format.header() != null) {
+                String header = reader.readLine();
+                lineNumber++;
+                if (header == null) {
+                    return report.finish();
+                }
+                format.readHeader(header);
+            }
+            List<String> lines = new ArrayList<>(batchSize);
+            int firstLine = lineNumber + 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    submit(tasks, format, lines, firstLine);
+                    drain(tasks, maxTasks, receiver, report);
+                    lines = new ArrayList<>(batchSize);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            submit(tasks, format, lines, firstLine);
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading file: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+        } catch (IllegalArgumentException exception) {
+            System.err.println("Bad file: " + exception.getMessage());
+            Metrics.failed(Failure.BAD_FILE);
+        }
+        drain(tasks, 0, receiver, report);
+        Metrics.record(Operation.IMPORT, start, report.getImported() + report.getRejected());
+        return report.finish();
+    }
+
+    private void submit(Deque<ForkJoinTask<Batch>> tasks, RecordFormat format, List<String> lines, int firstLine) {
+        if (!lines.isEmpty()) {
+            tasks.add(pool.submit(() -> createPersons(format, lines, firstLine)));
+        }
+    }
+
+    /**
+     * Passes the oldest batches to receiver until no more than given number of batches is left in process
+     */
+    private static void drain(Deque<ForkJoinTask<Batch>> tasks, int maxLeft, Receiver receiver, ImportReport report) {
+        while (tasks.size() > maxLeft) {
+            Batch batch = tasks.poll().join();
+            List<Person> persons = new ArrayList<>(batch.persons.length);
+            for (Person person : batch.persons) {
+                if (person != null) {
+                    persons.add(person);
+                }
+            }
+            ValidationError[] errors = receiver.addAll(persons);
+            for (int i = 0, added = 0; i < batch.persons.length; i++) {
+                if (batch.persons[i] != null) {
+                    ValidationError error = errors[added++];
+                    if (error == null) {
+                        report.imported();
+                    } else {
+                        report.rejected(batch.firstLine + i, error, error.getMessage());
+                    }
+                } else if (batch.errors[i] != null) {
+                    report.rejected(batch.firstLine + i, batch.errors[i], batch.messages[i]);
+                } else if (batch.messages[i] != null) {
+                    report.malformed(batch.firstLine + i, batch.messages[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses and checks lines of one batch, runs in pool
+     */
+    private Batch createPersons(RecordFormat format, List<String> lines, int firstLine) {
+        Batch batch = new Batch(firstLine, lines.size());
+        PersonFactory factory = new PersonFactory(validator, (error, nameType) -> batch.reject(error, nameType));
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            batch.current = i;
+            String[] fields = format.parse(line);
+            if (fields == null) {
+                batch.messages[i] = "Malformed line";
+                continue;
+            }
+            String post = PersonFactory.trim(fields[RecordFormat.POST]);
+            String firstName = PersonFactory.trim(fields[RecordFormat.FIRST_NAME]);
+            String lastName = PersonFactory.trim(fields[RecordFormat.LAST_NAME]);
+            String birthYear = PersonFactory.trim(fields[RecordFormat.BIRTH_YEAR]);
+            String phoneNumber = PersonFactory.trim(fields[RecordFormat.PHONE_NUMBER]);
+            if (RecordFormat.MANAGER_POST.equalsIgnoreCase(post)) {
+                batch.persons[i] = factory.createManager(Person.NO_ID, firstName, lastName, birthYear, phoneNumber,
+                        PersonFactory.trim(fields[RecordFormat.DEPARTMENT]));
+            } else if (RecordFormat.EMPLOYEE_POST.equalsIgnoreCase(post)) {
+                batch.persons[i] = factory.createEmployee(Person.NO_ID, firstName, lastName, birthYear, phoneNumber,
+                        PersonFactory.trim(fields[RecordFormat.MANAGER]), ANY_MANAGER);
+            } else {
+                batch.messages[i] = "Post should be manager or employee";
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Results of one batch: person for every valid line,
+     * broken rule for every invalid line or only message for malformed line
+     */
+    private static final class Batch {
+        private final int firstLine;
+        private final Person[] persons;
+        private final ValidationError[] errors;
+        private final String[] messages;
+        private int current;
+
+        private Batch(int firstLine, int size) {
+            this.firstLine = firstLine;
+            this.persons = new Person[size];
+            this.errors = new ValidationError[size];
+            this.messages = new String[size];
+        }
+
+        private void reject(ValidationError error, String nameType) {
+            errors[current] = error;
+            messages[current] = nameType == null ? error.getMessage() : error.getMessage(nameType);
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of changes (write-ahead log) which is kept next to data file.
+ * Every added, changed and deleted note is written to the journal right away,
+ * so changes are not lost if the application is killed.
+ * Written records are flushed to disk by {@link #sync()}, which doesn't block writing of other records:
+ * all records which are written while one flush is running are flushed by the next one (group commit).
+ * <p>
+ * Data file is a snapshot. Journal is replayed on top of it at startup
+ * and is compacted into a new snapshot from time to time.
+ * First line of the journal identifies the snapshot it belongs to by file length, modification time
+ * and CRC-32 of its contents, so the journal which is left from an interrupted compaction is not applied twice.
+ * Contents are read only if modification time has changed, for example after the file was copied or restored.
+ * Journal with changes which doesn't belong to data file is not deleted, but moved aside
+ * to a file with extension {@value #ORPHAN_EXTENSION}.
+ * <p>
+ * Changes can be written while a snapshot is being saved: snapshot is taken at a {@link Mark},
+ * and records after the mark are moved to the journal of the new snapshot.
+ * Writing of records and switching to the new snapshot are synchronized on the journal.
+ * <p>
+ * Format of records (fields are separated by tabs):
+ * <ul>
+ * <li>{@code +M id first_name last_name birth_year phone_number department} - manager was added</li>
+ * <li>{@code +E id first_name last_name birth_year phone_number manager} - employee was added</li>
+ * <li>{@code =M id ...} and {@code =E id ...} - department of manager or manager of employee was changed,
+ * fields are the same as in added note</li>
+ * <li>{@code - id} - note was deleted</li>
+ * </ul>
+ */
+public class PersonJournal implements Closeable {
+
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String ORPHAN_EXTENSION = ".orphan";
+
+    private static final String HEADER = "#snapshot";
+    private static final char ADD = '+';
+    private static final char UPDATE = '=';
+    private static final char DELETE = '-';
+    private static final char MANAGER = 'M';
+    private static final char EMPLOYEE = 'E';
+    private static final char SEPARATOR = '\t';
+
+    /*
+     * Number of fields in records of added and changed note
+     */
+    private static final int ADD_FIELDS = 7;
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 16;
+
+    private final Path dataFile;
+    private final Path journalFile;
+    private FileChannel channel;
+    private int size;
+    /*
+     * Length of journal file in bytes
+     */
+    private long length;
+    /*
+     * Bytes written to all journal files and bytes of them which are flushed to disk,
+     * they only grow, unlike length which starts again after compaction
+     */
+    private long written;
+    private long synced;
+    /*
+     * Only one flush runs at a time, writers who come during it are served by the next one
+     */
+    private final Object syncLock = new Object();
+    private boolean isClosed;
+
+    /**
+     * @param dataFilePath path to data file (snapshot), journal is stored next to it
+     */
+    public PersonJournal(String dataFilePath) {
+        this.dataFile = Paths.get(dataFilePath);
+        this.journalFile = Paths.get(dataFilePath + JOURNAL_EXTENSION);
+    }
+
+    /**
+     * Receiver of changes which are replayed from journal
+     */
+    public interface Changes {
+        /**
+         * @param person added person with id
+         */
+        void add(Person person);
+
+        /**
+         * Changes department of manager or manager of employee, other fields are not changed
+         *
+         * @param person changed person with id
+         * @return false if there is no such note
+         */
+        boolean update(Person person);
+
+        /**
+         * @param id id of deleted note
+         * @return false if there is no such note
+         */
+        boolean delete(long id);
+    }
+
+    /**
+     * Position in journal: changes before it are in the snapshot which is being saved
+     */
+    public static final class Mark {
+        private final long length;
+        private final int size;
+
+        private Mark(long length, int size) {
+            this.length = length;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Checks if journal has changes which should be applied to data file.
+     * Reads only header and the first record, so it takes the same time for journal of any size.
+     *
+     * @return true if journal belongs to data file and has at least one record
+     */
+    public boolean hasChanges() {
+        recoverCompaction();
+        if (!Files.exists(journalFile)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            String record = reader.readLine();
+            return record != null && belongsTo(header, dataFile);
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading journal: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+            return true;
+        }
+    }
+
+    /**
+     * Applies changes from journal to notes loaded from snapshot
+     * and opens journal for writing new changes.
+     *
+     * @param changes receiver of changes, it already contains notes of data file
+     */
+    public void replay(Changes changes) {
+        try {
+            if (journalFile.getParent() != null) {
+                Files.createDirectories(journalFile.getParent());
+            }
+            recoverCompaction();
+            String header = null;
+            if (Files.exists(journalFile)) {
+                boolean isOrphan = false;
+                try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                    header = reader.readLine();
+                    if (belongsTo(header, dataFile)) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (apply(line, changes)) {
+                                size++;
+                            }
+                        }
+                    } else {
+                        isOrphan = reader.readLine() != null;
+                    }
+                }
+                if (isOrphan) {
+                    Path orphan = Paths.get(journalFile + "." + System.currentTimeMillis() + ORPHAN_EXTENSION);
+                    Files.move(journalFile, orphan);
+                    header = null;
+                    System.err.println("Journal doesn't belong to data file, its changes are not applied "
+                            + "and are kept in " + orphan);
+                }
+            }
+            if (size == 0 && !hasSameStamp(header, dataFile)) {
+                writeJournal(journalFile, snapshotHeader(dataFile));
+            }
+            channel = FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            terminateBrokenRecord();
+            length = channel.size();
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading journal: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+        }
+    }
+
+    /**
+     * Writes added note to journal
+     *
+     * @param person added person with id
+     */
+    public void logAdd(Person person) {
+        append(format(ADD, person), 1);
+    }
+
+    /**
+     * Writes added notes to journal.
+     * All notes are written at once.
+     *
+     * @param persons added persons with ids
+     */
+    public void logAdd(List<Person> persons) {
+        if (persons.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder(persons.size() * 64);
+        for (Person person : persons) {
+            lines.append(format(ADD, person));
+        }
+        append(lines.toString(), persons.size());
+    }
+
+    /**
+     * Writes changed notes to journal.
+     * All notes are written at once.
+     *
+     * @param persons changed persons with ids
+     */
+    public void logUpdate(List<Person> persons) {
+        if (persons.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder(persons.size() * 64);
+        for (Person person : persons) {
+            lines.append(format(UPDATE, person));
+        }
+        append(lines.toString(), persons.size());
+    }
+
+    /**
+     * Writes deleted notes to journal.
+     * All ids are written at once.
+     *
+     * @param ids ids of deleted notes
+     */
+    public void logDelete(long... ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder(ids.length * 16);
+        for (long id : ids) {
+            lines.append(DELETE).append(SEPARATOR).append(id).append('\n');
+        }
+        append(lines.toString(), ids.length);
+    }
+
+    /**
+     * Flushes written records to disk. Should be called without locks which readers need,
+     * because it waits for the disk. If records were flushed by another thread meanwhile, it returns at once.
+     */
+    public void sync() {
+        synchronized (syncLock) {
+            FileChannel current;
+            long end;
+            synchronized (this) {
+                if (synced >= written || channel == null) {
+                    return;
+                }
+                current = channel;
+                end = written;
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException exception) {
+                // journal was closed or replaced by compaction, which flushed its records
+                return;
+            } catch (IOException exception) {
+                System.err.println("Problem occurred while writing journal: " + exception.getMessage());
+                Metrics.failed(Failure.WRITE_FILE);
+                return;
+            }
+            synchronized (this) {
+                synced = Math.max(synced, end);
+            }
+        }
+    }
+
+    /**
+     * @return number of changes in journal since last compaction
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Marks the current end of journal. Should be taken together with the list of persons for
+     * {@link #compact(List, PersonSerializer, Mark)}, while no changes are written
+     *
+     * @return position after the last written change
+     */
+    public synchronized Mark mark() {
+        return new Mark(length, size);
+    }
+
+    /**
+     * Saves persons to a new snapshot and starts a journal for it with changes written after the mark.
+     * Snapshot is written to a temporary file first and replaces data file only when it is complete.
+     * Journal is not locked while snapshot is written, so changes can be written at the same time.
+     *
+     * @param persons    list of persons at the mark
+     * @param serializer serializer of data file
+     * @param mark       end of journal when persons were taken
+     * @return true if snapshot was saved
+     */
+    public boolean compact(List<Person> persons, PersonSerializer serializer, Mark mark) {
+        Path snapshot = Paths.get(dataFile + TEMP_EXTENSION);
+        Path journal = Paths.get(journalFile + TEMP_EXTENSION);
+        try {
+            Files.deleteIfExists(snapshot);
+            serializer.serialize(persons, snapshot.toString());
+            if (!Files.exists(snapshot)) {
+                System.err.println("Snapshot was not saved, journal is kept");
+                Metrics.failed(Failure.WRITE_FILE);
+                return false;
+            }
+            synchronized (this) {
+                if (isClosed) {
+                    Files.deleteIfExists(snapshot);
+                    return false;
+                }
+                writeJournal(journal, snapshotHeader(snapshot));
+                copyTail(journal, mark.length);
+                Files.move(snapshot, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                closeChannel();
+                Files.move(journal, journalFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                length = channel.size();
+                size -= mark.size;
+                // records after the mark were flushed with the new journal
+                synced = written;
+            }
+            return true;
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while compacting journal: " + exception.getMessage());
+            Metrics.failed(Failure.WRITE_FILE);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        isClosed = true;
+        try {
+            if (channel != null && synced < written) {
+                channel.force(false);
+                synced = written;
+            }
+            closeChannel();
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while closing journal: " + exception.getMessage());
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /*
+     * If the application was killed while writing a record,
+     * the next record should start from a new line and not be glued to the broken one
+     */
+    private void terminateBrokenRecord() throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel reader = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            long length = reader.size();
+            if (length > 0) {
+                reader.read(last, length - 1);
+            }
+        }
+        if (last.position() == 1 && last.get(0) != '\n') {
+            channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+            channel.force(false);
+        }
+    }
+
+    /*
+     * Copies changes which were written after the mark to the end of new journal
+     */
+    private void copyTail(Path journal, long from) throws IOException {
+        try (FileChannel source = FileChannel.open(journalFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (long position = from; position < length; ) {
+                position += source.transferTo(position, length - position, target);
+            }
+            target.force(true);
+        }
+    }
+
+    /*
+     * If the application was stopped after data file was replaced by a new snapshot but before its journal,
+     * the new journal is left in temporary file and it is the one which belongs to data file
+     */
+    private void recoverCompaction() {
+        Path journal = Paths.get(journalFile + TEMP_EXTENSION);
+        if (!Files.exists(journal)) {
+            return;
+        }
+        try {
+            String header;
+            try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+                header = reader.readLine();
+            }
+            if (belongsTo(header, dataFile)) {
+                Files.move(journal, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading journal: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+        }
+    }
+
+    private synchronized void append(String lines, int records) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            size += records;
+            length = channel.size();
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while writing journal: " + exception.getMessage());
+            Metrics.failed(Failure.WRITE_FILE);
+        }
+    }
+
+    private static void writeJournal(Path path, String header) throws IOException {
+        try (FileChannel journal = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            journal.write(ByteBuffer.wrap((header + '\n').getBytes(StandardCharsets.UTF_8)));
+            journal.force(true);
+        }
+    }
+
+    private static String snapshotHeader(Path snapshot) throws IOException {
+        File file = snapshot.toFile();
+        if (!file.exists()) {
+            return HEADER + SEPARATOR + -1;
+        }
+        return HEADER + SEPARATOR + file.length() + SEPARATOR + file.lastModified() + SEPARATOR + checksum(snapshot);
+    }
+
+    /*
+     * Journal belongs to snapshot if header has the same length and modification time of the file,
+     * or the same length and checksum if the file was touched without changing its contents
+     */
+    private static boolean belongsTo(String header, Path snapshot) throws IOException {
+        if (header == null) {
+            return false;
+        }
+        if (!snapshot.toFile().exists()) {
+            return header.equals(HEADER + SEPARATOR + -1);
+        }
+        if (hasSameStamp(header, snapshot)) {
+            return true;
+        }
+        String[] fields = header.split(String.valueOf(SEPARATOR));
+        return fields.length == 4 && fields[1].equals(String.valueOf(snapshot.toFile().length()))
+                && fields[3].equals(checksum(snapshot));
+    }
+
+    /*
+     * Compares length and modification time of snapshot with header without reading the file
+     */
+    private static boolean hasSameStamp(String header, Path snapshot) {
+        if (header == null || !snapshot.toFile().exists()) {
+            return false;
+        }
+        File file = snapshot.toFile();
+        return header.startsWith(HEADER + SEPARATOR + file.length() + SEPARATOR + file.lastModified() + SEPARATOR);
+    }
+
+    private static String checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String format(char change, Person person) {
+        StringBuilder line = new StringBuilder(64);
+        line.append(change).append(person instanceof Manager ? MANAGER : EMPLOYEE);
+        line.append(SEPARATOR).append(person.getId());
+        appendField(line, person.getFirstName());
+        appendField(line, person.getLastName());
+        appendField(line, String.valueOf(person.getBirthYear()));
+        appendField(line, person.getPhoneNumber());
+        if (person instanceof Manager) {
+            appendField(line, ((Manager) person).getDepartment());
+        } else {
+            appendField(line, ((Employee) person).getManager());
+        }
+        return line.append('\n').toString();
+    }
+
+    private static void appendField(StringBuilder line, String value) {
+        line.append(SEPARATOR);
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            switch (symbol) {
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                default:
+                    line.append(symbol);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            if (symbol == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                result.append(symbol);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Applies one record of journal.
+     * Record which is broken (for example, the last record written before a crash) is skipped.
+     *
+     * @return true if record was applied
+     */
+    private static boolean apply(String line, Changes changes) {
+        String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+        try {
+            if (fields.length == 2 && fields[0].equals(String.valueOf(DELETE))) {
+                return changes.delete(Long.parseLong(fields[1]));
+            }
+            if (fields[0].length() != 2 || fields.length != ADD_FIELDS) {
+                return false;
+            }
+            long id = Long.parseLong(fields[1]);
+            String firstName = unescape(fields[2]);
+            String lastName = unescape(fields[3]);
+            int birthYear = Integer.parseInt(fields[4]);
+            String phoneNumber = unescape(fields[5]);
+            String last = unescape(fields[6]);
+            Person person;
+            if (fields[0].charAt(1) == MANAGER) {
+                person = new Manager(id, firstName, lastName, birthYear, phoneNumber, last);
+            } else if (fields[0].charAt(1) == EMPLOYEE) {
+                person = new Employee(id, firstName, lastName, birthYear, phoneNumber, last);
+            } else {
+                return false;
+            }
+            if (fields[0].charAt(0) == ADD) {
+                changes.add(person);
+                return true;
+            }
+            return fields[0].charAt(0) == UPDATE && changes.update(person);
+        } catch (NumberFormatException exception) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerDirectory;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.validation.PersonValidator;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only access to notes of binary data file by their position,
+ * without loading the whole file (see layout in {@link PersonBinarySerializer}).
+ * <p>
+ * Opening reads only the header, so it takes the same time for file of any size.
+ * File is opened only if ids of its notes are the ids they get after loading, as the header tells.
+ * <p>
+ * Note is read from file when it is accessed for the first time:
+ * position of record is computed from its number, because records have fixed size,
+ * and its strings are found by offsets of the dictionary.
+ * Record is checked by the same rules as in {@link PersonBinarySerializer#deserialize(String)},
+ * managers of employees are looked up among valid managers, which are read once on the first access to an employee.
+ * Invalid record is not returned: loading skips it, so positions of notes after it are not the same
+ * as after loading, and the file should not be read by positions any more.
+ * The last read notes are kept in LRU cache of limited size.
+ * <p>
+ * File is read by positional reads and is not mapped to memory,
+ * so it is released as soon as it is closed and can be replaced by a new snapshot.
+ * Methods are synchronized, so the file can be shared by readers.
+ */
+public class PersonRecordFile implements Closeable {
+
+    /*
+     * Magic number, version, three counts, largest id and length of strings
+     */
+    private static final int HEADER_SIZE = 4 + 2 + 3 * 4 + 8 + 4;
+
+    /*
+     * Number of records which are read at once while managers are collected
+     */
+    private static final int BLOCK_RECORDS = 4096;
+
+    private final FileChannel channel;
+    private final PersonFactory factory;
+    private final int stringsCount;
+    private final int managersCount;
+    private final int recordsCount;
+    private final long maxId;
+    private final long stringsStart;
+    private final long recordsStart;
+    /*
+     * Valid managers, they are collected on the first access to an employee
+     */
+    private ManagerDirectory managers;
+
+    private final ByteBuffer record = ByteBuffer.allocate(PersonBinarySerializer.RECORD_SIZE);
+    private final ByteBuffer offsets = ByteBuffer.allocate(8);
+    private final Map<Integer, Person> cache;
+
+    private PersonRecordFile(FileChannel channel, ByteBuffer header, int cacheSize, PersonValidator validator) {
+        this.channel = channel;
+        // broken rules are reported when the file is loaded
+        this.factory = new PersonFactory(validator, (error, nameType) -> {
+        });
+        this.stringsCount = header.getInt();
+        this.managersCount = header.getInt();
+        this.recordsCount = managersCount + header.getInt();
+        this.maxId = header.getLong();
+        int stringsLength = header.getInt();
+        this.stringsStart = HEADER_SIZE + 4L * stringsCount;
+        this.recordsStart = stringsStart + stringsLength;
+        this.cache = new LinkedHashMap<Integer, Person>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Person> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Opens file and reads its header
+     *
+     * @param filePath  path to binary data file
+     * @param cacheSize maximum number of read notes which are kept in memory
+     * @param validator validator of records
+     * @return opened file or null if file doesn't exist, is not written in current version of format,
+     * has wrong size or notes get other ids when they are loaded
+     */
+    static PersonRecordFile open(String filePath, int cacheSize, PersonValidator validator) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            if (header.getInt() != PersonBinarySerializer.MAGIC
+                    || header.getShort() != PersonBinarySerializer.VERSION) {
+                channel.close();
+                return null;
+            }
+            PersonRecordFile file = new PersonRecordFile(channel, header, cacheSize, validator);
+            if (!file.hasValidHeader(channel.size())) {
+                // loading reports problems of the file
+                channel.close();
+                return null;
+            }
+            return file;
+        } catch (NoSuchFileException exception) {
+            return null;
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading file: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+            closeQuietly(channel);
+            return null;
+        }
+    }
+
+    /**
+     * @return number of records in file, it is the number of notes if all records are valid
+     */
+    public int size() {
+        return recordsCount;
+    }
+
+    /**
+     * Returns note by position: managers go first and employees go after them,
+     * as they are loaded by {@link PersonBinarySerializer#deserialize(String)}
+     *
+     * @param number position of note, starting from 0
+     * @return note or null if there is no such position, record is invalid or file can't be read
+     */
+    public synchronized Person get(int number) {
+        if (number < 0 || number >= recordsCount) {
+            return null;
+        }
+        Person person = cache.get(number);
+        if (person != null) {
+            return person;
+        }
+        try {
+            person = read(number, null);
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading file: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+            return null;
+        }
+        if (person != null) {
+            cache.put(number, person);
+        }
+        return person;
+    }
+
+    @Override
+    public synchronized void close() {
+        cache.clear();
+        closeQuietly(channel);
+    }
+
+    /*
+     * Counts are checked before they are used for positions, and records should end exactly at the end of file
+     */
+    private boolean hasValidHeader(long fileSize) {
+        return stringsCount >= 0 && managersCount >= 0 && recordsCount >= managersCount && maxId >= 0
+                && recordsStart >= stringsStart
+                && recordsStart + (long) recordsCount * PersonBinarySerializer.RECORD_SIZE == fileSize;
+    }
+
+    /*
+     * Reads record and creates note if it is valid.
+     * Record of manager is read from block if it is given, strings are taken from known ones if they are given
+     */
+    private Person read(int number, ByteBuffer block, Map<Integer, String> known) throws IOException {
+        ByteBuffer buffer = block;
+        if (buffer == null) {
+            buffer = record;
+            buffer.clear();
+            readFully(channel, buffer, recordsStart + (long) number * PersonBinarySerializer.RECORD_SIZE);
+        }
+        long id = buffer.getLong();
+        String firstName = string(buffer.getInt(), known);
+        String lastName = string(buffer.getInt(), known);
+        int birthYear = buffer.getShort();
+        String phoneNumber = string(buffer.getInt(), null);
+        String last = string(buffer.getInt(), known);
+        if (number < managersCount) {
+            return factory.createManager(id, firstName, lastName, birthYear, phoneNumber, last);
+        }
+        return factory.createEmployee(id, firstName, lastName, birthYear, phoneNumber, last, managers());
+    }
+
+    private Person read(int number, Map<Integer, String> known) throws IOException {
+        return read(number, null, known);
+    }
+
+    /*
+     * Collects valid managers once. Records are read in blocks, and names and departments,
+     * which repeat, are read once
+     */
+    private ManagerDirectory managers() throws IOException {
+        if (managers != null) {
+            return managers;
+        }
+        ManagerDirectory directory = new ManagerDirectory();
+        Map<Integer, String> known = new HashMap<>();
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_RECORDS * PersonBinarySerializer.RECORD_SIZE);
+        for (int first = 0; first < managersCount; first += BLOCK_RECORDS) {
+            int count = Math.min(BLOCK_RECORDS, managersCount - first);
+            block.clear().limit(count * PersonBinarySerializer.RECORD_SIZE);
+            readFully(channel, block, recordsStart + (long) first * PersonBinarySerializer.RECORD_SIZE);
+            for (int number = first; number < first + count; number++) {
+                Person manager = read(number, block, known);
+                if (manager != null) {
+                    directory.add(manager);
+                }
+            }
+        }
+        managers = directory;
+        return managers;
+    }
+
+    /*
+     * Reads string by its index in dictionary: offset of the string and offset of the next string
+     * give position and length of its bytes
+     */
+    private String string(int index, Map<Integer, String> known) throws IOException {
+        if (index < 0 || index >= stringsCount) {
+            throw new IOException("file is damaged, string " + index + " doesn't exist");
+        }
+        String string = known == null ? null : known.get(index);
+        if (string != null) {
+            return string;
+        }
+        offsets.clear();
+        if (index == stringsCount - 1) {
+            offsets.limit(4);
+        }
+        readFully(channel, offsets, HEADER_SIZE + 4L * index);
+        int start = offsets.getInt();
+        long end = index == stringsCount - 1 ? recordsStart - stringsStart : offsets.getInt();
+        if (start < 0 || start > end || stringsStart + end > recordsStart) {
+            throw new IOException("file is damaged, string " + index + " is out of file");
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        readFully(channel, bytes, stringsStart + start);
+        string = new String(bytes.array(), StandardCharsets.UTF_8);
+        if (known != null) {
+            known.put(index, string);
+        }
+        return string;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("file is truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while closing file: " + exception.getMessage());
+        }
+    }
+}
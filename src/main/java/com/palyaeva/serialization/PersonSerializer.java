@@ -25,4 +25,16 @@ public interface PersonSerializer {
      * @return List of Persons received from file
      */
     List<Person> deserialize(String filePath);
+
+    /**
+     * Opens file for reading notes one by one without loading the whole file.
+     * Formats which don't allow it return null.
+     *
+     * @param filePath  path to data file
+     * @param cacheSize maximum number of read notes which are kept in memory
+     * @return opened file or null if file can't be read in this way
+     */
+    default PersonRecordFile open(String filePath, int cacheSize) {
+        return null;
+    }
 }
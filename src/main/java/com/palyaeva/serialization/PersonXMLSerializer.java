@@ -3,8 +3,10 @@ package com.palyaeva.serialization;
 import com.palyaeva.entity.Employee;
 import com.palyaeva.entity.Manager;
 import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerDirectory;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
 import com.palyaeva.validation.PersonValidator;
-import com.palyaeva.validation.ValidationException;
 import org.jdom2.DocType;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -14,39 +16,44 @@ import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.palyaeva.serialization.PersonFactory.id;
+import static com.palyaeva.serialization.PersonFactory.trim;
+
 public class PersonXMLSerializer implements PersonSerializer {
 
     /*
-     * Values of constants are tag names in xml file
+     * Values of constants are tag names in xml file.
+     * They are shared with PersonXMLStreamSerializer
      */
-    private static final String ROOT_ELEMENT_NAME = "persons";
+    static final String ROOT_ELEMENT_NAME = "persons";
+
+    static final String MANAGER_CONTAINER_ELEMENT_NAME = "managers";
+    static final String EMPLOYEE_CONTAINER_ELEMENT_NAME = "employees";
 
-    private static final String MANAGER_CONTAINER_ELEMENT_NAME = "managers";
-    private static final String EMPLOYEE_CONTAINER_ELEMENT_NAME = "employees";
+    static final String PERSON_ELEMENT_NAME = "person";
+    static final String MANAGER_ELEMENT_NAME = "manager";
+    static final String EMPLOYEE_ELEMENT_NAME = "employee";
 
-    private static final String PERSON_ELEMENT_NAME = "person";
-    private static final String MANAGER_ELEMENT_NAME = "manager";
-    private static final String EMPLOYEE_ELEMENT_NAME = "employee";
+    static final String FIRST_NAME = "first_name";
+    static final String LAST_NAME = "last_name";
+    static final String BIRTH_YEAR = "birth_year";
+    static final String PHONE_NUMBER = "phone_number";
+    static final String DEPARTMENT = "department";
+    static final String MANAGER = "manager";
 
-    private static final String FIRST_NAME = "first_name";
-    private static final String LAST_NAME = "last_name";
-    private static final String BIRTH_YEAR = "birth_year";
-    private static final String PHONE_NUMBER = "phone_number";
-    private static final String DEPARTMENT = "department";
-    private static final String MANAGER = "manager";
+    /*
+     * Attribute of manager and employee elements
+     */
+    static final String ID = "id";
 
-    private final PersonValidator validator;
+    private final PersonFactory factory;
 
     public PersonXMLSerializer(PersonValidator validator) {
-        this.validator = validator;
+        this.factory = new PersonFactory(validator);
     }
 
     /**
@@ -77,36 +84,20 @@ public class PersonXMLSerializer implements PersonSerializer {
         Document document = new Document(rootElement);
         document.setDocType(new DocType("xml"));
 
-        createDirectories(filePath);
-
-        try (FileOutputStream stream = new FileOutputStream(filePath)) {
+        try {
             XMLOutputter xmlOutputter = new XMLOutputter(Format.getPrettyFormat());
-            xmlOutputter.output(document, stream);
+            SerializerFiles.replace(filePath, stream -> xmlOutputter.output(document, stream));
         } catch (IOException exception) {
             System.err.println("Problem occurred when saving file: " + exception.getMessage());
-            // logging exception :)
-        }
-    }
-
-    /**
-     * Creates new directory for data file if it doesn't exist.
-     * (In our case creates directory "data")
-     * And does nothing if directory exists.
-     *
-     * @param filePath full path to data file
-     */
-    private void createDirectories(String filePath) {
-        String path = filePath.substring(0, filePath.lastIndexOf(File.separatorChar));
-        Path directoryPath = Paths.get(path);
-        try {
-            Files.createDirectories(directoryPath).toFile();
-        } catch (IOException exception) {
-            System.err.println("Problem occurred with creating directory: " + exception.getMessage());
+            Metrics.failed(Failure.WRITE_FILE);
         }
     }
 
     private Element serializePerson(Person person) {
         Element personElement = new Element(PERSON_ELEMENT_NAME);
+        if (person.getId() != Person.NO_ID) {
+            personElement.setAttribute(ID, String.valueOf(person.getId()));
+        }
         personElement.addContent(new Element(FIRST_NAME).setText(person.getFirstName()));
         personElement.addContent(new Element(LAST_NAME).setText(person.getLastName()));
         personElement.addContent(new Element(BIRTH_YEAR).setText(String.valueOf(person.getBirthYear())));
@@ -147,46 +138,39 @@ public class PersonXMLSerializer implements PersonSerializer {
                 Element rootNode = document.getRootElement();
                 if (rootNode != null) {
                     Element managersElement = rootNode.getChild(MANAGER_CONTAINER_ELEMENT_NAME);
-                    personList.addAll(deserializeManagers(managersElement));
+                    List<Manager> managers = deserializeManagers(managersElement);
+                    personList.addAll(managers);
 
                     Element employeesElement = rootNode.getChild(EMPLOYEE_CONTAINER_ELEMENT_NAME);
-                    personList.addAll(deserializeEmployees(employeesElement, personList));
+                    personList.addAll(deserializeEmployees(employeesElement, ManagerDirectory.of(managers)));
                 }
             } catch (IOException exception) {
                 System.err.println("Problem occurred while reading file: " + exception.getMessage());
-                // logging exception :)
+                Metrics.failed(Failure.READ_FILE);
             } catch (JDOMException exception) {
                 System.err.println("Bad xml file: " + exception.getMessage());
-                // logging exception :)
+                Metrics.failed(Failure.BAD_FILE);
             }
         }
         return personList;
     }
 
-    private List<Employee> deserializeEmployees(Element employeesElement, List<Person> personList) {
+    private List<Employee> deserializeEmployees(Element employeesElement, ManagerDirectory managers) {
         List<Employee> employeesList = new ArrayList<>();
 
         if (employeesElement != null) {
             List<Element> employeesElementChildren = employeesElement.getChildren();
             for (Element child : employeesElementChildren) {
-                try {
-                    String firstName = child.getChildText(FIRST_NAME).trim();
-                    String lastName = child.getChildText(LAST_NAME).trim();
-                    String birthYear = child.getChildText(BIRTH_YEAR).trim();
-                    String phoneNumber = child.getChildText(PHONE_NUMBER).trim();
-                    String manager = child.getChildText(MANAGER).trim();
-
-                    validator.validateName(firstName, "First name");
-                    validator.validateName(lastName, "Last name");
-                    validator.validateBirthYear(birthYear);
-                    validator.validatePhoneNumber(phoneNumber);
-                    validator.validateManager(manager, personList);
-
-                    Employee employee = new Employee(firstName, lastName, Integer.parseInt(birthYear),
-                            phoneNumber, manager);
+                Employee employee = factory.createEmployee(
+                        id(child.getAttributeValue(ID)),
+                        trim(child.getChildText(FIRST_NAME)),
+                        trim(child.getChildText(LAST_NAME)),
+                        trim(child.getChildText(BIRTH_YEAR)),
+                        trim(child.getChildText(PHONE_NUMBER)),
+                        trim(child.getChildText(MANAGER)),
+                        managers);
+                if (employee != null) {
                     employeesList.add(employee);
-                } catch (ValidationException exception) {
-                    System.err.println(exception.getMessage());
                 }
             }
         }
@@ -199,24 +183,15 @@ public class PersonXMLSerializer implements PersonSerializer {
         if (managersElement != null) {
             List<Element> managersElementChildren = managersElement.getChildren();
             for (Element child : managersElementChildren) {
-                try {
-                    String firstName = child.getChildText(FIRST_NAME).trim();
-                    String lastName = child.getChildText(LAST_NAME).trim();
-                    String birthYear = child.getChildText(BIRTH_YEAR).trim();
-                    String phoneNumber = child.getChildText(PHONE_NUMBER).trim();
-                    String department = child.getChildText(DEPARTMENT).trim();
-
-                    validator.validateName(firstName, "First name");
-                    validator.validateName(lastName, "Last name");
-                    validator.validateBirthYear(birthYear);
-                    validator.validatePhoneNumber(phoneNumber);
-                    validator.validateDepartment(department);
-
-                    Manager manager = new Manager(firstName, lastName, Integer.parseInt(birthYear),
-                            phoneNumber, department);
+                Manager manager = factory.createManager(
+                        id(child.getAttributeValue(ID)),
+                        trim(child.getChildText(FIRST_NAME)),
+                        trim(child.getChildText(LAST_NAME)),
+                        trim(child.getChildText(BIRTH_YEAR)),
+                        trim(child.getChildText(PHONE_NUMBER)),
+                        trim(child.getChildText(DEPARTMENT)));
+                if (manager != null) {
                     managersList.add(manager);
-                } catch (ValidationException exception) {
-                    System.err.println(exception.getMessage());
                 }
             }
         }
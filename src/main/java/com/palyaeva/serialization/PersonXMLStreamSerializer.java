@@ -0,0 +1,504 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerDirectory;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.validation.PersonValidator;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import static com.palyaeva.serialization.PersonFactory.id;
+import static com.palyaeva.serialization.PersonFactory.trim;
+import static com.palyaeva.serialization.PersonXMLSerializer.BIRTH_YEAR;
+import static com.palyaeva.serialization.PersonXMLSerializer.DEPARTMENT;
+import static com.palyaeva.serialization.PersonXMLSerializer.EMPLOYEE_CONTAINER_ELEMENT_NAME;
+import static com.palyaeva.serialization.PersonXMLSerializer.EMPLOYEE_ELEMENT_NAME;
+import static com.palyaeva.serialization.PersonXMLSerializer.FIRST_NAME;
+import static com.palyaeva.serialization.PersonXMLSerializer.ID;
+import static com.palyaeva.serialization.PersonXMLSerializer.LAST_NAME;
+import static com.palyaeva.serialization.PersonXMLSerializer.MANAGER;
+import static com.palyaeva.serialization.PersonXMLSerializer.MANAGER_CONTAINER_ELEMENT_NAME;
+import static com.palyaeva.serialization.PersonXMLSerializer.MANAGER_ELEMENT_NAME;
+import static com.palyaeva.serialization.PersonXMLSerializer.PHONE_NUMBER;
+import static com.palyaeva.serialization.PersonXMLSerializer.ROOT_ELEMENT_NAME;
+
+/**
+ * Streaming implementation of {@link PersonSerializer} for the same xml format
+ * as {@link PersonXMLSerializer}.
+ * Persons are read with StAX and created as soon as their element is closed,
+ * so only one record is kept in memory at a time instead of the whole document.
+ * Only if employees are written before managers, their raw records are kept until managers are read.
+ * <p>
+ * In bulk mode records are validated and created in a {@link ForkJoinPool},
+ * and memory is bounded by a few chunks of records.
+ */
+public class PersonXMLStreamSerializer implements PersonSerializer {
+
+    /*
+     * Depth of elements in xml file:
+     * <persons> -> <managers>/<employees> -> <manager>/<employee> -> fields
+     */
+    private static final int CONTAINER_DEPTH = 2;
+    private static final int RECORD_DEPTH = 3;
+    private static final int FIELD_DEPTH = 4;
+
+    /*
+     * Indexes of fields in raw record
+     */
+    private static final int FIRST_NAME_INDEX = 0;
+    private static final int LAST_NAME_INDEX = 1;
+    private static final int BIRTH_YEAR_INDEX = 2;
+    private static final int PHONE_NUMBER_INDEX = 3;
+    private static final int DEPARTMENT_OR_MANAGER_INDEX = 4;
+    private static final int ID_INDEX = 5;
+    private static final int FIELDS_COUNT = 6;
+
+    /*
+     * Number of records which are validated by one task in bulk mode
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private static final String ENCODING = "UTF-8";
+
+    /*
+     * Line breaks with indentation for depths 0..3
+     */
+    private static final String[] INDENTS = {"\n", "\n  ", "\n    ", "\n      "};
+
+    private final PersonFactory factory;
+
+    private final XMLInputFactory inputFactory;
+
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    /*
+     * Pool for bulk mode or null if records are created on the reading thread
+     */
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    public PersonXMLStreamSerializer(PersonValidator validator) {
+        this(validator, null, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates serializer in bulk mode.
+     * File is still read by one thread, but records are split into chunks
+     * which are validated and created in given pool.
+     *
+     * @param validator validator for loaded records
+     * @param pool      pool for validating chunks of records
+     */
+    public PersonXMLStreamSerializer(PersonValidator validator, ForkJoinPool pool) {
+        this(validator, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param validator validator for loaded records
+     * @param pool      pool for validating chunks of records or null for sequential loading
+     * @param chunkSize number of records in one chunk
+     */
+    public PersonXMLStreamSerializer(PersonValidator validator, ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.factory = new PersonFactory(validator);
+        this.inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
+    /**
+     * Saves given list of persons to xml file specified by file path.
+     * Elements are written straight to the file without building a document,
+     * first managers and then employees in the same format as {@link PersonXMLSerializer}.
+     * File is written to a temporary file and renamed over data file when it is complete.
+     *
+     * @param persons  list of Persons
+     * @param filePath path to data file
+     */
+    @Override
+    public void serialize(List<Person> persons, String filePath) {
+        try {
+            SerializerFiles.replace(filePath, stream -> {
+                try {
+                    XMLStreamWriter writer = outputFactory.createXMLStreamWriter(stream, ENCODING);
+                    writePersons(writer, persons);
+                    writer.close();
+                } catch (XMLStreamException exception) {
+                    throw new IOException(exception.getMessage(), exception);
+                }
+            });
+        } catch (IOException exception) {
+            System.err.println("Problem occurred when saving file: " + exception.getMessage());
+            Metrics.failed(Failure.WRITE_FILE);
+        }
+    }
+
+    private void writePersons(XMLStreamWriter writer, List<Person> persons) throws XMLStreamException {
+        writer.writeStartDocument(ENCODING, "1.0");
+        writer.writeCharacters("\n");
+        writer.writeDTD("<!DOCTYPE xml>");
+        writer.writeCharacters("\n");
+        writer.writeStartElement(ROOT_ELEMENT_NAME);
+        writeContainer(writer, persons, true);
+        writeContainer(writer, persons, false);
+        writeIndent(writer, 0);
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndDocument();
+    }
+
+    /*
+     * List is passed twice, for managers and for employees, instead of splitting it into two lists
+     */
+    private void writeContainer(XMLStreamWriter writer, List<Person> persons,
+                                boolean isManager) throws XMLStreamException {
+        writeIndent(writer, 1);
+        writer.writeStartElement(isManager ? MANAGER_CONTAINER_ELEMENT_NAME : EMPLOYEE_CONTAINER_ELEMENT_NAME);
+        for (Person person : persons) {
+            if (isManager && person instanceof Manager) {
+                writePerson(writer, MANAGER_ELEMENT_NAME, person);
+                writeField(writer, DEPARTMENT, ((Manager) person).getDepartment());
+            } else if (!isManager && person instanceof Employee) {
+                writePerson(writer, EMPLOYEE_ELEMENT_NAME, person);
+                writeField(writer, MANAGER, ((Employee) person).getManager());
+            } else {
+                if (isManager && !(person instanceof Employee)) {
+                    // reported once, in the first pass
+                    System.err.println("Unknown type: " + person.getClass().getName());
+                }
+                continue;
+            }
+            writeIndent(writer, RECORD_DEPTH - 1);
+            writer.writeEndElement();
+        }
+        writeIndent(writer, 1);
+        writer.writeEndElement();
+    }
+
+    private void writePerson(XMLStreamWriter writer, String elementName, Person person) throws XMLStreamException {
+        writeIndent(writer, RECORD_DEPTH - 1);
+        writer.writeStartElement(elementName);
+        if (person.getId() != Person.NO_ID) {
+            writer.writeAttribute(ID, String.valueOf(person.getId()));
+        }
+        writeField(writer, FIRST_NAME, person.getFirstName());
+        writeField(writer, LAST_NAME, person.getLastName());
+        writeField(writer, BIRTH_YEAR, String.valueOf(person.getBirthYear()));
+        writeField(writer, PHONE_NUMBER, person.getPhoneNumber());
+    }
+
+    private void writeField(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        writeIndent(writer, FIELD_DEPTH - 1);
+        writer.writeStartElement(name);
+        if (value != null) {
+            writer.writeCharacters(value);
+        }
+        writer.writeEndElement();
+    }
+
+    /*
+     * Pretty format of PersonXMLSerializer: new line and two spaces for every level
+     */
+    private static void writeIndent(XMLStreamWriter writer, int depth) throws XMLStreamException {
+        writer.writeCharacters(INDENTS[depth]);
+    }
+
+    /**
+     * Loads persons from xml file into list.
+     *
+     * @param filePath path to data file
+     * @return List of Persons received from file
+     */
+    @Override
+    public List<Person> deserialize(String filePath) {
+        List<Person> personList = new ArrayList<>();
+        deserialize(filePath, personList::add);
+        return personList;
+    }
+
+    /**
+     * Reads persons from xml file one by one and passes every valid person to consumer
+     * right after its element is read.
+     * Invalid records are skipped, as in {@link PersonXMLSerializer#deserialize(String)}.
+     *
+     * @param filePath path to data file
+     * @param consumer receiver of read persons
+     */
+    public void deserialize(String filePath, Consumer<Person> consumer) {
+        File xmlFile = new File(filePath);
+        if (!xmlFile.exists()) {
+            return;
+        }
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(xmlFile))) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(stream);
+            try {
+                readPersons(reader, consumer);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException exception) {
+            System.err.println("Problem occurred while reading file: " + exception.getMessage());
+            Metrics.failed(Failure.READ_FILE);
+        } catch (XMLStreamException exception) {
+            System.err.println("Bad xml file: " + exception.getMessage());
+            Metrics.failed(Failure.BAD_FILE);
+        }
+    }
+
+    /*
+     * Only the first containers of managers and of employees are read, as in PersonXMLSerializer.
+     * Managers of employees are checked against all managers of the file,
+     * so employees which are written before managers wait for them as raw records
+     */
+    private void readPersons(XMLStreamReader reader, Consumer<Person> consumer) throws XMLStreamException {
+        RecordHandler handler = pool == null
+                ? new SequentialLoader(consumer)
+                : new ParallelLoader(consumer);
+        List<String[]> waitingEmployees = new ArrayList<>();
+        String[] fields = new String[FIELDS_COUNT];
+        boolean isManagersContainer = false;
+        boolean isEmployeesContainer = false;
+        boolean isManagersRead = false;
+        boolean isEmployeesRead = false;
+        int depth = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == CONTAINER_DEPTH) {
+                    isManagersContainer = !isManagersRead
+                            && MANAGER_CONTAINER_ELEMENT_NAME.equals(reader.getLocalName());
+                    isEmployeesContainer = !isEmployeesRead
+                            && EMPLOYEE_CONTAINER_ELEMENT_NAME.equals(reader.getLocalName());
+                } else if (depth == RECORD_DEPTH) {
+                    fields = new String[FIELDS_COUNT];
+                    fields[ID_INDEX] = reader.getAttributeValue(null, ID);
+                } else if (depth == FIELD_DEPTH) {
+                    int index = fieldIndex(reader.getLocalName(), isManagersContainer);
+                    String text = reader.getElementText();
+                    if (index >= 0) {
+                        fields[index] = text;
+                    }
+                    // getElementText() stops at the end tag of the field
+                    depth--;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == RECORD_DEPTH && isEmployeesContainer && !isManagersRead) {
+                    waitingEmployees.add(fields);
+                } else if (depth == RECORD_DEPTH && (isManagersContainer || isEmployeesContainer)) {
+                    handler.record(isManagersContainer, fields);
+                } else if (depth == CONTAINER_DEPTH) {
+                    if (isManagersContainer) {
+                        isManagersRead = true;
+                        recordAll(handler, waitingEmployees);
+                    }
+                    isEmployeesRead |= isEmployeesContainer;
+                    isManagersContainer = false;
+                    isEmployeesContainer = false;
+                }
+                depth--;
+            }
+        }
+        // file without managers
+        recordAll(handler, waitingEmployees);
+        handler.finish();
+    }
+
+    private static void recordAll(RecordHandler handler, List<String[]> employees) {
+        for (String[] fields : employees) {
+            handler.record(false, fields);
+        }
+        employees.clear();
+    }
+
+    /**
+     * @return index of field in record or -1 if the field is unknown
+     */
+    private static int fieldIndex(String name, boolean isManager) {
+        switch (name) {
+            case FIRST_NAME:
+                return FIRST_NAME_INDEX;
+            case LAST_NAME:
+                return LAST_NAME_INDEX;
+            case BIRTH_YEAR:
+                return BIRTH_YEAR_INDEX;
+            case PHONE_NUMBER:
+                return PHONE_NUMBER_INDEX;
+            case DEPARTMENT:
+                return isManager ? DEPARTMENT_OR_MANAGER_INDEX : -1;
+            case MANAGER:
+                return isManager ? -1 : DEPARTMENT_OR_MANAGER_INDEX;
+            default:
+                return -1;
+        }
+    }
+
+    private Manager createManager(String[] fields) {
+        return factory.createManager(
+                id(fields[ID_INDEX]),
+                trim(fields[FIRST_NAME_INDEX]),
+                trim(fields[LAST_NAME_INDEX]),
+                trim(fields[BIRTH_YEAR_INDEX]),
+                trim(fields[PHONE_NUMBER_INDEX]),
+                trim(fields[DEPARTMENT_OR_MANAGER_INDEX]));
+    }
+
+    private Employee createEmployee(String[] fields, ManagerDirectory managers) {
+        return factory.createEmployee(
+                id(fields[ID_INDEX]),
+                trim(fields[FIRST_NAME_INDEX]),
+                trim(fields[LAST_NAME_INDEX]),
+                trim(fields[BIRTH_YEAR_INDEX]),
+                trim(fields[PHONE_NUMBER_INDEX]),
+                trim(fields[DEPARTMENT_OR_MANAGER_INDEX]),
+                managers);
+    }
+
+    /**
+     * Receives raw records in the order they are read from file
+     */
+    private interface RecordHandler {
+        void record(boolean isManager, String[] fields);
+
+        void finish();
+    }
+
+    /**
+     * Creates every person right after its record is read
+     */
+    private final class SequentialLoader implements RecordHandler {
+        /*
+         * Managers are needed to check managers of employees,
+         * so they are the only persons which are kept during reading
+         */
+        private final ManagerDirectory managers = new ManagerDirectory();
+        private final Consumer<Person> consumer;
+
+        private SequentialLoader(Consumer<Person> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void record(boolean isManager, String[] fields) {
+            Person person;
+            if (isManager) {
+                Manager manager = createManager(fields);
+                if (manager != null) {
+                    managers.add(manager);
+                }
+                person = manager;
+            } else {
+                person = createEmployee(fields, managers);
+            }
+            if (person != null) {
+                consumer.accept(person);
+            }
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    /**
+     * Collects records into chunks and validates chunks in fork-join pool.
+     * Chunks are passed to consumer in the order they were read,
+     * and only a limited number of chunks is processed at the same time.
+     * All managers which are read before employees are added to directory
+     * before the first chunk of employees is checked.
+     */
+    private final class ParallelLoader implements RecordHandler {
+        private final ManagerDirectory managers = new ManagerDirectory();
+        private final Consumer<Person> consumer;
+        private final Deque<ForkJoinTask<List<Person>>> tasks = new ArrayDeque<>();
+        private final int maxTasks = pool.getParallelism() * 4;
+        private List<String[]> chunk = new ArrayList<>(chunkSize);
+        private boolean isManagersChunk;
+
+        private ParallelLoader(Consumer<Person> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void record(boolean isManager, String[] fields) {
+            if (isManager != isManagersChunk) {
+                /*
+                 * Employees are checked against the directory of managers,
+                 * so it must be complete before employees are submitted
+                 * and must not change while employees are checked
+                 */
+                submitChunk();
+                drain(0);
+                isManagersChunk = isManager;
+            }
+            chunk.add(fields);
+            if (chunk.size() == chunkSize) {
+                submitChunk();
+                drain(maxTasks);
+            }
+        }
+
+        @Override
+        public void finish() {
+            submitChunk();
+            drain(0);
+        }
+
+        private void submitChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<String[]> records = chunk;
+            boolean isManagers = isManagersChunk;
+            chunk = new ArrayList<>(chunkSize);
+            tasks.add(pool.submit(() -> createPersons(records, isManagers)));
+        }
+
+        private List<Person> createPersons(List<String[]> records, boolean isManagers) {
+            List<Person> persons = new ArrayList<>(records.size());
+            for (String[] fields : records) {
+                Person person = isManagers ? createManager(fields) : createEmployee(fields, managers);
+                if (person != null) {
+                    persons.add(person);
+                }
+            }
+            return persons;
+        }
+
+        /**
+         * Passes results of the oldest chunks to consumer
+         * until no more than given number of chunks is left in process
+         */
+        private void drain(int maxLeft) {
+            while (tasks.size() > maxLeft) {
+                for (Person person : tasks.poll().join()) {
+                    managers.add(person);
+                    consumer.accept(person);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.entity.Person;
+
+/**
+ * Format of text files with one note per line, used for bulk import and export.
+ * Both formats have the same fields, named as in answers of the HTTP server.
+ */
+interface RecordFormat {
+
+    String CSV_EXTENSION = ".csv";
+    String NDJSON_EXTENSION = ".ndjson";
+    String JSON_LINES_EXTENSION = ".jsonl";
+
+    /*
+     * Names of fields and their indexes in parsed record
+     */
+    String[] FIELDS = {"id", "post", "firstName", "lastName", "birthYear", "phoneNumber", "manager", "department"};
+    int ID = 0;
+    int POST = 1;
+    int FIRST_NAME = 2;
+    int LAST_NAME = 3;
+    int BIRTH_YEAR = 4;
+    int PHONE_NUMBER = 5;
+    int MANAGER = 6;
+    int DEPARTMENT = 7;
+
+    String MANAGER_POST = "manager";
+    String EMPLOYEE_POST = "employee";
+
+    /**
+     * Chooses format by file extension
+     *
+     * @param filePath path to file
+     * @return new format or null if extension is unknown
+     */
+    static RecordFormat forFile(String filePath) {
+        String name = filePath.toLowerCase();
+        if (name.endsWith(CSV_EXTENSION)) {
+            return new CsvRecordFormat();
+        }
+        if (name.endsWith(NDJSON_EXTENSION) || name.endsWith(JSON_LINES_EXTENSION)) {
+            return new NdjsonRecordFormat();
+        }
+        return null;
+    }
+
+    /**
+     * @return first line of file or null if format has no header
+     */
+    String header();
+
+    /**
+     * Reads header of file, it defines order of fields in next lines.
+     * Called only if format has a header.
+     *
+     * @param line first line of file
+     * @throws IllegalArgumentException if header has unknown or repeated fields
+     */
+    void readHeader(String line);
+
+    /**
+     * Parses one line. Format should be safe for parsing lines in several threads after header is read.
+     *
+     * @param line line of file
+     * @return values of fields by their indexes, missing fields are null, or null if line is malformed
+     */
+    String[] parse(String line);
+
+    /**
+     * Appends note to line without line break
+     *
+     * @param person note
+     * @param line   line
+     */
+    void write(Person person, StringBuilder line);
+}
@@ -0,0 +1,87 @@
+package com.palyaeva.serialization;
+
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File operations shared by serializers
+ */
+final class SerializerFiles {
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SerializerFiles() {
+    }
+
+    /**
+     * Creates new directory for data file if it doesn't exist.
+     * (In our case creates directory "data")
+     * And does nothing if directory exists.
+     *
+     * @param filePath full path to data file
+     */
+    static void createDirectories(String filePath) {
+        int separatorIndex = filePath.lastIndexOf(File.separatorChar);
+        if (separatorIndex <= 0) {
+            return;
+        }
+        Path directoryPath = Paths.get(filePath.substring(0, separatorIndex));
+        try {
+            Files.createDirectories(directoryPath);
+        } catch (IOException exception) {
+            System.err.println("Problem occurred with creating directory: " + exception.getMessage());
+            Metrics.failed(Failure.WRITE_FILE);
+        }
+    }
+
+    /**
+     * Writer of file content for {@link #replace(String, ContentWriter)}
+     */
+    @FunctionalInterface
+    interface ContentWriter {
+        void write(OutputStream stream) throws IOException;
+    }
+
+    /**
+     * Writes data file through a temporary file in the same directory.
+     * Temporary file is synced to disk and then atomically renamed over data file,
+     * so data file is either old or new one even if saving is interrupted.
+     *
+     * @param filePath full path to data file
+     * @param writer   writer of file content
+     * @throws IOException if file can't be written, data file stays unchanged then
+     */
+    static void replace(String filePath, ContentWriter writer) throws IOException {
+        createDirectories(filePath);
+        Path target = Paths.get(filePath).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), TEMP_EXTENSION);
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 OutputStream stream = new BufferedOutputStream(file, BUFFER_SIZE)) {
+                writer.write(stream);
+                stream.flush();
+                file.getFD().sync();
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package com.palyaeva.server;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.metrics.Failure;
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.store.NotebookStore;
+import com.palyaeva.store.PersonQuery;
+import com.palyaeva.store.ReportsPolicy;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.ValidationError;
+import com.palyaeva.validation.ValidationException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP server for the notebook, built on {@code com.sun.net.httpserver}.
+ * Works with the same {@link NotebookStore} as the console. Answers are in JSON:
+ * <ul>
+ * <li>{@code GET /persons?offset=0&limit=20} - page of notes in order of the list</li>
+ * <li>{@code POST /persons} - add note, form fields: post (employee or manager), firstName, lastName,
+ * birthYear, phoneNumber and manager or department</li>
+ * <li>{@code GET /persons/{id}} - note by its id</li>
+ * <li>{@code DELETE /persons/{id}} - delete note by its id</li>
+ * <li>{@code DELETE /persons?ids=1,2,3} - delete several notes at once</li>
+ * <li>Both deletes take {@code policy=block|cascade|reassign} and {@code to={id}} of new manager
+ * for employees of deleted managers, see {@link ReportsPolicy}. Blocked delete is answered with 409</li>
+ * <li>{@code POST /departments/move} - move managers of department, form fields: from, to</li>
+ * <li>{@code GET /search?firstName=...&lastName=...&similarFirstName=...&similarLastName=...&phoneNumber=...
+ * &fromYear=...&toYear=...&department=...&manager=...} - search by any of these parameters,
+ * note should meet all of them. Similar names are found with typos and in Cyrillic or Latin letters</li>
+ * <li>{@code GET /sorted?by=lastName&offset=0&limit=20} - page of notes sorted by lastName or birthYear</li>
+ * <li>{@code GET /reports/departments}, {@code /reports/birthYears} and {@code /reports/managers?limit=20} -
+ * headcount per department, number of notes per year of birth and managers with the most employees</li>
+ * </ul>
+ * Every request is handled in its own virtual thread when JVM supports them,
+ * otherwise in a cached pool of platform threads.
+ * <p>
+ * Requests are not authenticated, so by default server accepts connections only from the same host.
+ * Bodies larger than {@value #MAX_BODY_SIZE} bytes are rejected with 413.
+ */
+public class NotebookServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 1000;
+
+    /*
+     * Connections waiting for accept, default backlog of the system is too small for load tests
+     */
+    private static final int BACKLOG = 4096;
+
+    /*
+     * Form of one note takes a few hundred bytes
+     */
+    private static final int MAX_BODY_SIZE = 64 * 1024;
+
+    private static final int OK = 200;
+    private static final int CREATED = 201;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int CONFLICT = 409;
+    private static final int PAYLOAD_TOO_LARGE = 413;
+    private static final int INTERNAL_ERROR = 500;
+
+    private final NotebookStore store;
+    private final PersonValidator validator;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates server and binds it to port of loopback address, server doesn't accept requests until {@link #start()}
+     *
+     * @param store     store of notes
+     * @param validator validator of added notes
+     * @param port      port, 0 for any free port
+     * @throws IOException if port can't be bound
+     */
+    public NotebookServer(NotebookStore store, PersonValidator validator, int port) throws IOException {
+        this(store, validator, InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Creates server and binds it to port of given address, server doesn't accept requests until {@link #start()}.
+     * Anyone who can reach the address can add and delete notes
+     *
+     * @param store     store of notes
+     * @param validator validator of added notes
+     * @param address   local address, wildcard address for all network interfaces
+     * @param port      port, 0 for any free port
+     * @throws IOException if port can't be bound
+     */
+    public NotebookServer(NotebookStore store, PersonValidator validator,
+                          InetAddress address, int port) throws IOException {
+        this.store = store;
+        this.validator = validator;
+        this.server = HttpServer.create(new InetSocketAddress(address, port), BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/persons", exchange -> handle(exchange, this::persons));
+        server.createContext("/search", exchange -> handle(exchange, this::search));
+        server.createContext("/sorted", exchange -> handle(exchange, this::sorted));
+        server.createContext("/departments/move", exchange -> handle(exchange, this::moveDepartment));
+        server.createContext("/reports", exchange -> handle(exchange, this::report));
+    }
+
+    /**
+     * Returns executor which starts a new virtual thread for every task.
+     * Virtual threads are taken by reflection, so the application still runs on Java 8,
+     * where they are replaced with a cached pool of platform threads.
+     *
+     * @return executor for handling requests
+     */
+    public static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException exception) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits for a second until current requests are finished
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return address and port on which server accepts requests
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * @return port on which server accepts requests
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handler of one path, returns answer or throws {@link RequestException}
+     */
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Wrong request, it is answered with status and message in json
+     */
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(exchange);
+        } catch (RequestException exception) {
+            response = new Response(exception.status, PersonJson.error(exception.getMessage()));
+        } catch (RuntimeException exception) {
+            System.err.println("Problem occurred while handling request: " + exception);
+            Metrics.failed(Failure.REQUEST);
+            response = new Response(INTERNAL_ERROR, PersonJson.error("Internal error"));
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(body);
+        }
+    }
+
+    private Response persons(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals("/persons") || path.equals("/persons/")) {
+            if (method.equals("GET")) {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                int offset = intParameter(query, "offset", 0);
+                int limit = Math.min(intParameter(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+                return new Response(OK, PersonJson.page(store.size(), offset, store.page(offset, limit)));
+            }
+            if (method.equals("POST")) {
+                Person person = readPerson(parseQuery(readBody(exchange)));
+                try {
+                    person = store.add(person);
+                } catch (ValidationException exception) {
+                    throw new RequestException(BAD_REQUEST, exception.getMessage());
+                }
+                return new Response(CREATED, PersonJson.person(person));
+            }
+            if (method.equals("DELETE")) {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                String ids = query.get("ids");
+                if (ids == null) {
+                    throw new RequestException(BAD_REQUEST, "Parameter ids is required");
+                }
+                long[] parsedIds = parseIds(ids);
+                int count = delete(() -> store.removeAll(parsedIds, policy(query), newManagerId(query)));
+                return new Response(OK, PersonJson.deleted(count));
+            }
+            throw new RequestException(METHOD_NOT_ALLOWED, "Method is not allowed");
+        }
+        long id = parseLong(path.substring("/persons/".length()), "id");
+        Person person;
+        if (method.equals("GET")) {
+            person = store.getById(id);
+        } else if (method.equals("DELETE")) {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            person = delete(() -> store.remove(id, policy(query), newManagerId(query)));
+        } else {
+            throw new RequestException(METHOD_NOT_ALLOWED, "Method is not allowed");
+        }
+        if (person == null) {
+            throw new RequestException(NOT_FOUND, "Note " + id + " is not found");
+        }
+        return new Response(OK, PersonJson.person(person));
+    }
+
+    private Response moveDepartment(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            throw new RequestException(METHOD_NOT_ALLOWED, "Method is not allowed");
+        }
+        Map<String, String> form = parseQuery(readBody(exchange));
+        String from = field(form, "from");
+        String to = field(form, "to");
+        int count;
+        try {
+            count = store.moveDepartment(from, to);
+        } catch (ValidationException exception) {
+            throw new RequestException(BAD_REQUEST, exception.getMessage());
+        }
+        return new Response(OK, PersonJson.moved(count));
+    }
+
+    @FunctionalInterface
+    private interface Deletion<T> {
+        T delete() throws ValidationException;
+    }
+
+    /*
+     * Manager whose employees would be left without manager is a conflict with current state,
+     * and wrong new manager is a wrong request
+     */
+    private static <T> T delete(Deletion<T> deletion) {
+        try {
+            return deletion.delete();
+        } catch (ValidationException exception) {
+            int status = exception.getError() == ValidationError.MANAGER_HAS_EMPLOYEES ? CONFLICT : BAD_REQUEST;
+            throw new RequestException(status, exception.getMessage());
+        }
+    }
+
+    private static ReportsPolicy policy(Map<String, String> query) {
+        String policy = query.get("policy");
+        if (policy == null) {
+            return ReportsPolicy.BLOCK;
+        }
+        switch (policy.trim().toLowerCase()) {
+            case "block":
+                return ReportsPolicy.BLOCK;
+            case "cascade":
+                return ReportsPolicy.CASCADE;
+            case "reassign":
+                return ReportsPolicy.REASSIGN;
+            default:
+                throw new RequestException(BAD_REQUEST, "Parameter policy should be block, cascade or reassign");
+        }
+    }
+
+    private static long newManagerId(Map<String, String> query) {
+        String to = query.get("to");
+        return to == null ? Person.NO_ID : parseLong(to, "to");
+    }
+
+    /*
+     * Parameters are combined with AND, so several of them make a compound query
+     */
+    private Response search(HttpExchange exchange) {
+        requireGet(exchange);
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        PersonQuery personQuery = new PersonQuery();
+        boolean hasConditions = false;
+        if (query.containsKey("firstName")) {
+            personQuery.firstNameContains(query.get("firstName").trim());
+            hasConditions = true;
+        }
+        if (query.containsKey("lastName")) {
+            personQuery.lastNameContains(query.get("lastName").trim());
+            hasConditions = true;
+        }
+        if (query.containsKey("similarFirstName")) {
+            personQuery.firstNameSimilarTo(query.get("similarFirstName").trim());
+            hasConditions = true;
+        }
+        if (query.containsKey("similarLastName")) {
+            personQuery.lastNameSimilarTo(query.get("similarLastName").trim());
+            hasConditions = true;
+        }
+        if (query.containsKey("phoneNumber")) {
+            String phoneNumber = query.get("phoneNumber").trim();
+            validate(() -> validator.validatePhoneNumber(phoneNumber));
+            personQuery.phoneNumber(phoneNumber);
+            hasConditions = true;
+        }
+        if (query.containsKey("fromYear") || query.containsKey("toYear")) {
+            personQuery.bornBetween(
+                    query.containsKey("fromYear") ? parseInt(query.get("fromYear"), "fromYear") : Integer.MIN_VALUE,
+                    query.containsKey("toYear") ? parseInt(query.get("toYear"), "toYear") : Integer.MAX_VALUE);
+            hasConditions = true;
+        }
+        if (query.containsKey("department")) {
+            personQuery.department(query.get("department").trim());
+            hasConditions = true;
+        }
+        if (query.containsKey("manager")) {
+            personQuery.managedBy(query.get("manager").trim());
+            hasConditions = true;
+        }
+        if (!hasConditions) {
+            throw new RequestException(BAD_REQUEST, "At least one of parameters firstName, lastName, "
+                    + "similarFirstName, similarLastName, phoneNumber, fromYear, toYear, department or manager "
+                    + "is required");
+        }
+        List<Person> found = store.find(personQuery);
+        return new Response(OK, PersonJson.page(found.size(), 0, found));
+    }
+
+    private Response report(HttpExchange exchange) {
+        requireGet(exchange);
+        String path = exchange.getRequestURI().getPath();
+        switch (path) {
+            case "/reports/departments":
+                return new Response(OK, PersonJson.headcount(store.headcountByDepartment()));
+            case "/reports/birthYears":
+                return new Response(OK, PersonJson.birthYears(store.countByBirthYear()));
+            case "/reports/managers":
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                int limit = Math.min(intParameter(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+                return new Response(OK, PersonJson.spans(store.spanOfControl(limit)));
+            default:
+                throw new RequestException(NOT_FOUND, "Unknown report " + path);
+        }
+    }
+
+    private Response sorted(HttpExchange exchange) {
+        requireGet(exchange);
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int offset = intParameter(query, "offset", 0);
+        int limit = Math.min(intParameter(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        String by = query.getOrDefault("by", "lastName");
+        List<Person> page;
+        switch (by) {
+            case "lastName":
+                page = store.sortedByLastName(offset, limit);
+                break;
+            case "birthYear":
+                page = store.sortedByBirthYear(offset, limit);
+                break;
+            default:
+                throw new RequestException(BAD_REQUEST, "Parameter by should be lastName or birthYear");
+        }
+        return new Response(OK, PersonJson.page(store.size(), offset, page));
+    }
+
+    /*
+     * Fields are validated by the same rules as in console, manager of employee is checked by the store
+     */
+    private Person readPerson(Map<String, String> form) {
+        String firstName = field(form, "firstName");
+        String lastName = field(form, "lastName");
+        String birthYear = field(form, "birthYear");
+        String phoneNumber = field(form, "phoneNumber");
+        validate(() -> validator.validateName(firstName, "First name"));
+        validate(() -> validator.validateName(lastName, "Last name"));
+        validate(() -> validator.validateBirthYear(birthYear));
+        validate(() -> validator.validatePhoneNumber(phoneNumber));
+        String post = field(form, "post");
+        if (post.equalsIgnoreCase("employee")) {
+            return new Employee(firstName, lastName, Integer.parseInt(birthYear), phoneNumber,
+                    field(form, "manager"));
+        }
+        if (post.equalsIgnoreCase("manager")) {
+            String department = field(form, "department");
+            validate(() -> validator.validateDepartment(department));
+            return new Manager(firstName, lastName, Integer.parseInt(birthYear), phoneNumber, department);
+        }
+        throw new RequestException(BAD_REQUEST, "Post should be employee or manager");
+    }
+
+    @FunctionalInterface
+    private interface Validation {
+        void validate() throws ValidationException;
+    }
+
+    private static void validate(Validation validation) {
+        try {
+            validation.validate();
+        } catch (ValidationException exception) {
+            throw new RequestException(BAD_REQUEST, exception.getMessage());
+        }
+    }
+
+    private static String field(Map<String, String> form, String name) {
+        String value = form.get(name);
+        if (value == null) {
+            throw new RequestException(BAD_REQUEST, "Field " + name + " is required");
+        }
+        return value.trim();
+    }
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new RequestException(METHOD_NOT_ALLOWED, "Method is not allowed");
+        }
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int number = parseInt(value, name);
+        if (number < 0) {
+            throw new RequestException(BAD_REQUEST, "Parameter " + name + " should not be negative");
+        }
+        return number;
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException exception) {
+            throw new RequestException(BAD_REQUEST, "Parameter " + name + " should be integer number");
+        }
+    }
+
+    private static long parseLong(String value, String name) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException exception) {
+            throw new RequestException(BAD_REQUEST, "Parameter " + name + " should be integer number");
+        }
+    }
+
+    /*
+     * Parses comma-separated list of ids
+     */
+    private static long[] parseIds(String value) {
+        String[] parts = value.split(",");
+        long[] ids = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ids[i] = parseLong(parts[i], "ids");
+        }
+        return ids;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try (InputStream stream = exchange.getRequestBody()) {
+            for (int read = stream.read(buffer); read > 0; read = stream.read(buffer)) {
+                // length is checked while reading, because chunked body has no Content-Length
+                if (body.size() + read > MAX_BODY_SIZE) {
+                    throw new RequestException(PAYLOAD_TOO_LARGE,
+                            "Request body is larger than " + MAX_BODY_SIZE + " bytes");
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Parses "name=value&name=value" of query string or form body
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(decode(name), decode(value));
+        }
+        return parameters;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException | IllegalArgumentException exception) {
+            throw new RequestException(BAD_REQUEST, "Invalid encoding of parameter");
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.palyaeva.server;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.store.DepartmentHeadcount;
+import com.palyaeva.store.ManagerSpan;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes answers of {@link NotebookServer} in JSON
+ */
+final class PersonJson {
+
+    private PersonJson() {
+    }
+
+    /**
+     * @param total  number of all notes
+     * @param offset number of skipped notes
+     * @param page   notes of page
+     * @return {"total":..., "offset":..., "persons":[...]}
+     */
+    static String page(int total, int offset, List<Person> page) {
+        StringBuilder json = new StringBuilder(64 + page.size() * 128);
+        json.append("{\"total\":").append(total)
+                .append(",\"offset\":").append(offset)
+                .append(",\"persons\":[");
+        for (int i = 0; i < page.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendPerson(json, page.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    static String person(Person person) {
+        StringBuilder json = new StringBuilder(128);
+        appendPerson(json, person);
+        return json.toString();
+    }
+
+    /**
+     * @param count number of deleted notes
+     * @return {"deleted":...}
+     */
+    static String deleted(int count) {
+        return "{\"deleted\":" + count + '}';
+    }
+
+    static String moved(int count) {
+        return "{\"moved\":" + count + '}';
+    }
+
+    /**
+     * @param headcount headcount of departments
+     * @return {"departments":[{"department":..., "managers":..., "employees":..., "total":...}, ...]}
+     */
+    static String headcount(List<DepartmentHeadcount> headcount) {
+        StringBuilder json = new StringBuilder(32 + headcount.size() * 80).append("{\"departments\":[");
+        for (int i = 0; i < headcount.size(); i++) {
+            DepartmentHeadcount department = headcount.get(i);
+            json.append(i > 0 ? ",{\"department\":" : "{\"department\":");
+            appendString(json, department.getDepartment());
+            json.append(",\"managers\":").append(department.getManagers())
+                    .append(",\"employees\":").append(department.getEmployees())
+                    .append(",\"total\":").append(department.getTotal()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * @param years number of notes for every year of birth
+     * @return {"birthYears":{"1980":..., ...}}
+     */
+    static String birthYears(Map<Integer, Integer> years) {
+        StringBuilder json = new StringBuilder(32 + years.size() * 16).append("{\"birthYears\":{");
+        boolean isFirst = true;
+        for (Map.Entry<Integer, Integer> year : years.entrySet()) {
+            json.append(isFirst ? "\"" : ",\"").append(year.getKey()).append("\":").append(year.getValue());
+            isFirst = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * @param spans managers with numbers of their employees
+     * @return {"managers":[{"manager":{...}, "employees":...}, ...]}
+     */
+    static String spans(List<ManagerSpan> spans) {
+        StringBuilder json = new StringBuilder(32 + spans.size() * 160).append("{\"managers\":[");
+        for (int i = 0; i < spans.size(); i++) {
+            json.append(i > 0 ? ",{\"manager\":" : "{\"manager\":");
+            appendPerson(json, spans.get(i).getManager());
+            json.append(",\"employees\":").append(spans.get(i).getEmployees()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString();
+    }
+
+    private static void appendPerson(StringBuilder json, Person person) {
+        json.append("{\"id\":").append(person.getId());
+        json.append(",\"post\":").append(person instanceof Manager ? "\"manager\"" : "\"employee\"");
+        json.append(",\"firstName\":");
+        appendString(json, person.getFirstName());
+        json.append(",\"lastName\":");
+        appendString(json, person.getLastName());
+        json.append(",\"birthYear\":").append(person.getBirthYear());
+        json.append(",\"phoneNumber\":");
+        appendString(json, person.getPhoneNumber());
+        if (person instanceof Employee) {
+            json.append(",\"manager\":");
+            appendString(json, ((Employee) person).getManager());
+        } else if (person instanceof Manager) {
+            json.append(",\"department\":");
+            appendString(json, ((Manager) person).getDepartment());
+        }
+        json.append('}');
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                    break;
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,36 @@
+package com.palyaeva.store;
+
+/**
+ * Headcount of department: its managers and their employees
+ */
+public class DepartmentHeadcount {
+
+    private final String department;
+    private final int managers;
+    private final int employees;
+
+    DepartmentHeadcount(String department, int managers, int employees) {
+        this.department = department;
+        this.managers = managers;
+        this.employees = employees;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public int getManagers() {
+        return managers;
+    }
+
+    /**
+     * @return number of employees of managers of department
+     */
+    public int getEmployees() {
+        return employees;
+    }
+
+    public int getTotal() {
+        return managers + employees;
+    }
+}
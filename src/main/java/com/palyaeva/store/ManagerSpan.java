@@ -0,0 +1,25 @@
+package com.palyaeva.store;
+
+import com.palyaeva.entity.Manager;
+
+/**
+ * Span of control of manager: number of employees who report to the manager
+ */
+public class ManagerSpan {
+
+    private final Manager manager;
+    private final int employees;
+
+    ManagerSpan(Manager manager, int employees) {
+        this.manager = manager;
+        this.employees = employees;
+    }
+
+    public Manager getManager() {
+        return manager;
+    }
+
+    public int getEmployees() {
+        return employees;
+    }
+}
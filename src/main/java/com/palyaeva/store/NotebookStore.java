@@ -0,0 +1,1191 @@
+package com.palyaeva.store;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.BirthYearView;
+import com.palyaeva.index.IntList;
+import com.palyaeva.index.LastNameView;
+import com.palyaeva.index.NGramIndex;
+import com.palyaeva.index.PersonIndex;
+import com.palyaeva.index.PhoneIndex;
+import com.palyaeva.index.SimilarNameIndex;
+import com.palyaeva.index.SortedView;
+import com.palyaeva.metrics.Metrics;
+import com.palyaeva.metrics.Operation;
+import com.palyaeva.serialization.PersonJournal;
+import com.palyaeva.serialization.PersonRecordFile;
+import com.palyaeva.serialization.PersonSerializer;
+import com.palyaeva.validation.PersonValidator;
+import com.palyaeva.validation.ValidationError;
+import com.palyaeva.validation.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe storage of notes which can be shared by the console and other clients.
+ * Keeps the list of notes together with its indexes and journal:
+ * <ul>
+ * <li>Reads run in parallel with each other, writes are exclusive and short</li>
+ * <li>Every write updates all indexes and is written to the journal before it becomes visible.
+ * Journal is flushed to disk after the write lock is released and before the write returns</li>
+ * <li>Employee can be added only if its manager exists in the store</li>
+ * <li>{@link #snapshot()} gives an immutable copy of notes for long readers</li>
+ * </ul>
+ * Notes are kept in columns of {@link PersonTable} and indexes keep rows of the table,
+ * so returned persons are created on every read and are not the same objects which were added.
+ * <p>
+ * Every note gets an id when it is added. Id doesn't change when other notes are added, deleted or sorted,
+ * so notes are deleted by id in O(1).
+ * Ids are saved to data file, and notes of old files without ids get new ids in order of loading.
+ * <p>
+ * Employees are never left without manager: manager with employees is deleted
+ * only together with them or after they are moved to another manager, see {@link ReportsPolicy}.
+ * Employees of manager are found by index of the table in O(employees).
+ * <p>
+ * Store can be opened by {@link #loadLazily()}, then notes are loaded on the first access which needs them all.
+ * <p>
+ * Data file is saved in background by a thread of the store, callers only write changes to the journal.
+ * Changes are coalesced: the first change schedules a save, and saves start no more often than once
+ * per {@code notebook.save.interval} seconds (5 by default). Save copies columns of the table under read lock
+ * and writes notes without lock, so writers wait only for copying of arrays, not for writing of the file.
+ * Changes which are made during the save stay in the journal of the new data file.
+ * Age of the oldest change which is not in data file yet is given by {@link #getSaveLag()}.
+ */
+public class NotebookStore {
+
+    private static final long DEFAULT_SAVE_INTERVAL_SECONDS = 5;
+
+    /*
+     * Deleted rows are removed from the table when there are at least this number of them
+     * and they take at least a quarter of all rows
+     */
+    private static final int ROWS_COMPACTION_THRESHOLD = 1024;
+
+    /*
+     * Maximum number of notes read from data file which are kept in memory until the store is loaded
+     */
+    private static final int LAZY_CACHE_SIZE = 1024;
+
+    private final String filePath;
+    private final PersonSerializer serializer;
+    private final PersonValidator validator;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    private final PersonTable table = new PersonTable();
+    private PersonJournal journal;
+
+    /*
+     * Thread which saves data file, it is started on the first save
+     */
+    private final ScheduledThreadPoolExecutor saver;
+    private final long saveInterval = TimeUnit.SECONDS.toNanos(
+            Long.getLong("notebook.save.interval", DEFAULT_SAVE_INTERVAL_SECONDS));
+    private final AtomicBoolean isSaveScheduled = new AtomicBoolean();
+    private volatile long lastSaveStart = System.nanoTime() - saveInterval;
+    /*
+     * Time of the oldest change which is not in data file, 0 if there is no such change.
+     * It is set under write lock and reset under read lock by the saver
+     */
+    private volatile long firstUnsavedChange;
+
+    /*
+     * False after loadLazily() until notes are loaded
+     */
+    private volatile boolean isLoaded = true;
+
+    /*
+     * Data file which gives notes by position until notes are loaded, it is changed only under write lock
+     */
+    private volatile PersonRecordFile recordFile;
+
+    /*
+     * Id for the next added note, ids are not reused
+     */
+    private long nextId = 1;
+
+    /*
+     * Immutable copy of notes, it is dropped on every write and created again on demand
+     */
+    private volatile List<Person> snapshot = Collections.emptyList();
+
+    private final NGramIndex firstNameIndex = new NGramIndex(Person::getFirstName, table::firstName, table::isLive);
+    private final NGramIndex lastNameIndex = new NGramIndex(Person::getLastName, table::lastName, table::isLive);
+    private final SimilarNameIndex similarFirstNames = new SimilarNameIndex(Person::getFirstName, table::firstName,
+            table::isLive);
+    private final SimilarNameIndex similarLastNames = new SimilarNameIndex(Person::getLastName, table::lastName,
+            table::isLive);
+    private final PhoneIndex phoneIndex = new PhoneIndex();
+    private final SortedView lastNameView = new LastNameView();
+    private final BirthYearView birthYearView = new BirthYearView();
+    /*
+     * Indexes which are updated on every added and deleted note.
+     * They are not thread-safe and are used only under the lock
+     */
+    private final List<PersonIndex> indexes = new ArrayList<>();
+
+    /**
+     * Creates store which is kept only in memory
+     *
+     * @param validator validator of added notes
+     */
+    public NotebookStore(PersonValidator validator) {
+        this(null, null, validator);
+    }
+
+    /**
+     * Creates store which is saved to data file and journal
+     *
+     * @param filePath   path to data file
+     * @param serializer serializer of data file
+     * @param validator  validator of added notes
+     */
+    public NotebookStore(String filePath, PersonSerializer serializer, PersonValidator validator) {
+        this.filePath = filePath;
+        this.serializer = serializer;
+        this.validator = validator;
+        indexes.add(firstNameIndex);
+        indexes.add(lastNameIndex);
+        indexes.add(similarFirstNames);
+        indexes.add(similarLastNames);
+        indexes.add(phoneIndex);
+        indexes.add(lastNameView);
+        indexes.add(birthYearView);
+        if (serializer == null) {
+            saver = null;
+        } else {
+            saver = new ScheduledThreadPoolExecutor(1, task -> {
+                Thread thread = new Thread(task, "notebook-saver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            saver.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+    }
+
+    /**
+     * Loads notes from data file and applies changes saved in journal after that.
+     * Every change is written to the journal as soon as it is made,
+     * so there is nothing to save when the store is closed.
+     * Store without data file stays empty.
+     */
+    public void load() {
+        if (serializer == null) {
+            return;
+        }
+        Metrics.storeSize(this::loadedSize);
+        Metrics.saveLag(this::getSaveLag);
+        long start = Metrics.start();
+        List<Person> loaded = serializer.deserialize(filePath);
+        PersonJournal loadedJournal = new PersonJournal(filePath);
+        writeLock.lock();
+        try {
+            fill(loaded, loadedJournal);
+            Metrics.record(Operation.LOAD, start, table.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Opens store without loading notes and filling indexes.
+     * Notes are loaded on the first access which needs all of them, for example search, sorting or change.
+     * Until then number of notes and notes by their position are read from data file one by one,
+     * if format of the file allows it and the journal has no changes for it.
+     * Only header of such file is read here, so it takes the same time for file of any size.
+     * Notes are checked when they are read. Invalid note is skipped by loading and positions of notes after it
+     * change, so then notes are loaded at once and positions are taken from the loaded list.
+     */
+    public void loadLazily() {
+        if (serializer == null) {
+            return;
+        }
+        Metrics.storeSize(this::loadedSize);
+        Metrics.saveLag(this::getSaveLag);
+        writeLock.lock();
+        try {
+            isLoaded = false;
+            if (!new PersonJournal(filePath).hasChanges()) {
+                recordFile = serializer.open(filePath, LAZY_CACHE_SIZE);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     * Loads notes if store was opened lazily
+     */
+    private void ensureLoaded() {
+        if (isLoaded) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (!isLoaded) {
+                long start = Metrics.start();
+                fill(serializer.deserialize(filePath), new PersonJournal(filePath));
+                Metrics.record(Operation.LOAD, start, table.size());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     * Size for metrics, it doesn't load the store
+     */
+    private int loadedSize() {
+        readLock.lock();
+        try {
+            if (recordFile != null) {
+                return recordFile.size();
+            }
+            return isLoaded ? table.size() : -1;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /*
+     * Loads notes if store was opened lazily and data file can't give notes by position.
+     * Data file is closed only under write lock, so it can be used under read lock after this check
+     */
+    private void ensureReadableByPosition() {
+        if (recordFile == null) {
+            ensureLoaded();
+        }
+    }
+
+    /*
+     * Inserts notes of data file and applies changes of journal.
+     * Should be called under write lock
+     */
+    private void fill(List<Person> loaded, PersonJournal loadedJournal) {
+        // new ids are given after all ids of the file, so they are the same at every start
+        for (Person person : loaded) {
+            nextId = Math.max(nextId, person.getId() + 1);
+        }
+        for (Person person : loaded) {
+            insert(person);
+        }
+        loadedJournal.replay(new JournalChanges());
+        journal = loadedJournal;
+        isLoaded = true;
+        if (recordFile != null) {
+            recordFile.close();
+            recordFile = null;
+        }
+    }
+
+    /**
+     * Applies changes from journal, journal is not written while it is replayed
+     */
+    private final class JournalChanges implements PersonJournal.Changes {
+        @Override
+        public void add(Person person) {
+            insert(person);
+        }
+
+        @Override
+        public boolean update(Person person) {
+            int row = table.row(person.getId());
+            if (row < 0 || table.isManager(row) != person instanceof Manager) {
+                return false;
+            }
+            if (person instanceof Manager) {
+                table.setDepartment(row, ((Manager) person).getDepartment());
+            } else {
+                table.setManager(row, ((Employee) person).getManager());
+            }
+            snapshot = null;
+            return true;
+        }
+
+        @Override
+        public boolean delete(long id) {
+            int row = table.row(id);
+            if (row < 0) {
+                return false;
+            }
+            Person person = table.get(row);
+            table.delete(row);
+            for (PersonIndex index : indexes) {
+                index.remove(row, person);
+            }
+            compactRowsIfNeeded();
+            return true;
+        }
+    }
+
+    /**
+     * Saves data file now if the journal has changes and waits until it is written.
+     * Commands which make many changes and exit call it before {@link #close()},
+     * so the next start doesn't replay all their changes from the journal.
+     *
+     * @return false if data file was not saved, changes stay in the journal then
+     */
+    public boolean flush() {
+        if (saver == null || journal == null) {
+            return true;
+        }
+        try {
+            return saver.submit(() -> journal.size() == 0 || save()).get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException exception) {
+            System.err.println("Problem occurred while saving file: " + exception.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Closes journal. Store can't be changed after that.
+     * Save which is not started yet is cancelled, and changes which are not saved stay in the journal,
+     * so closing doesn't wait for writing of data file, see {@link #flush()}.
+     */
+    public void close() {
+        writeLock.lock();
+        try {
+            if (saver != null) {
+                saver.shutdown();
+            }
+            if (journal != null) {
+                journal.close();
+            }
+            if (recordFile != null) {
+                recordFile.close();
+                recordFile = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds note to the end of the list and gives it a new id.
+     * Fields of person should be already validated,
+     * manager of employee is checked by the store.
+     *
+     * @param person added manager or employee, its id is ignored
+     * @return added note with its id
+     * @throws ValidationException if manager of employee is not found
+     */
+    public Person add(Person person) throws ValidationException {
+        ensureLoaded();
+        writeLock.lock();
+        try {
+            if (person instanceof Employee) {
+                validator.validateManager(((Employee) person).getManager(), table);
+            }
+            Person added = person.withId(nextId);
+            insert(added);
+            if (journal != null) {
+                journal.logAdd(added);
+                changed();
+            }
+            return added;
+        } finally {
+            writeLock.unlock();
+            syncJournal();
+        }
+    }
+
+    /**
+     * Adds notes under one lock and writes them to journal at once.
+     * Fields of persons should be already validated,
+     * employee is added only if its manager exists in the store or is added earlier in the same list.
+     * Data file is saved in background, so bulk import is not slowed down by saving the whole list
+     * after every batch.
+     *
+     * @param persons added managers and employees, their ids are ignored
+     * @return broken rule for every rejected person and null for every added one
+     */
+    public ValidationError[] addAll(List<Person> persons) {
+        ensureLoaded();
+        ValidationError[] errors = new ValidationError[persons.size()];
+        List<Person> added = new ArrayList<>(persons.size());
+        writeLock.lock();
+        try {
+            for (int i = 0; i < errors.length; i++) {
+                Person person = persons.get(i);
+                if (person instanceof Employee) {
+                    errors[i] = validator.checkManager(((Employee) person).getManager(), table);
+                    if (errors[i] != null) {
+                        Metrics.rejected(errors[i]);
+                        continue;
+                    }
+                }
+                Person note = person.withId(nextId);
+                insert(note);
+                added.add(note);
+            }
+            if (journal != null && !added.isEmpty()) {
+                journal.logAdd(added);
+                changed();
+            }
+            return errors;
+        } finally {
+            writeLock.unlock();
+            syncJournal();
+        }
+    }
+
+    /**
+     * Deletes note by id. Manager is not deleted if its employees would be left without manager.
+     *
+     * @param id id of note
+     * @return deleted note or null if there is no such note
+     * @throws ValidationException if manager has employees
+     */
+    public Person remove(long id) throws ValidationException {
+        return remove(id, ReportsPolicy.BLOCK, Person.NO_ID);
+    }
+
+    /**
+     * Deletes note by id, employees of deleted manager are handled by given policy
+     *
+     * @param id           id of note
+     * @param policy       what to do with employees of deleted manager
+     * @param newManagerId id of manager who gets employees for {@link ReportsPolicy#REASSIGN}
+     * @return deleted note or null if there is no such note
+     * @throws ValidationException if manager has employees and policy doesn't allow to delete it
+     */
+    public Person remove(long id, ReportsPolicy policy, long newManagerId) throws ValidationException {
+        ensureLoaded();
+        writeLock.lock();
+        try {
+            int row = table.row(id);
+            if (row < 0) {
+                return null;
+            }
+            Person person = table.get(row);
+            delete(new int[]{row}, 1, policy, newManagerId);
+            return person;
+        } finally {
+            writeLock.unlock();
+            syncJournal();
+        }
+    }
+
+    /**
+     * Deletes notes by ids under one lock. Managers are not deleted if their employees
+     * would be left without manager, unless employees are deleted too.
+     *
+     * @param ids ids of notes, missing ids are skipped
+     * @return number of deleted notes
+     * @throws ValidationException if some manager has employees, nothing is deleted then
+     */
+    public int removeAll(long[] ids) throws ValidationException {
+        return removeAll(ids, ReportsPolicy.BLOCK, Person.NO_ID);
+    }
+
+    /**
+     * Deletes notes by ids under one lock, employees of deleted managers are handled by given policy.
+     * Either all notes are deleted or nothing is changed.
+     *
+     * @param ids          ids of notes, missing ids are skipped
+     * @param policy       what to do with employees of deleted managers
+     * @param newManagerId id of manager who gets employees for {@link ReportsPolicy#REASSIGN}
+     * @return number of deleted notes, including deleted employees
+     * @throws ValidationException if some manager has employees and policy doesn't allow to delete it
+     */
+    public int removeAll(long[] ids, ReportsPolicy policy, long newManagerId) throws ValidationException {
+        ensureLoaded();
+        writeLock.lock();
+        try {
+            int[] rows = new int[ids.length];
+            int count = 0;
+            for (long id : ids) {
+                int row = table.row(id);
+                if (row >= 0) {
+                    rows[count++] = row;
+                }
+            }
+            return count == 0 ? 0 : delete(rows, count, policy, newManagerId);
+        } finally {
+            writeLock.unlock();
+            syncJournal();
+        }
+    }
+
+    /**
+     * Counts employees who would be left without manager if manager is deleted.
+     * They are employees of manager who has no namesakes.
+     *
+     * @param managerId id of manager
+     * @return number of employees, 0 if there is no such manager
+     */
+    public int countReports(long managerId) {
+        ensureLoaded();
+        readLock.lock();
+        try {
+            int row = table.row(managerId);
+            if (row < 0 || !table.isManager(row) || table.namesakes(row).length > 1) {
+                return 0;
+            }
+            return table.employees(row).length;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Moves all managers of one department to another department.
+     * Managers are found by index of departments, so other notes are not scanned.
+     *
+     * @param from old department
+     * @param to   new department
+     * @return number of moved managers
+     * @throws ValidationException if new department is invalid
+     */
+    public int moveDepartment(String from, String to) throws ValidationException {
+        ValidationError error = validator.checkDepartment(to);
+        if (error != null) {
+            throw new ValidationException(error, error.getMessage());
+        }
+        ensureLoaded();
+        writeLock.lock();
+        try {
+            int[] rows = table.moveDepartment(from, to);
+            if (rows.length == 0) {
+                return 0;
+            }
+            snapshot = null;
+            if (journal != null) {
+                List<Person> moved = new ArrayList<>(rows.length);
+                for (int row : rows) {
+                    moved.add(table.get(row));
+                }
+                journal.logUpdate(moved);
+                changed();
+            }
+            return rows.length;
+        } finally {
+            writeLock.unlock();
+            syncJournal();
+        }
+    }
+
+    /**
+     * @param id id of note
+     * @return note or null if there is no such note
+     */
+    public Person getById(long id) {
+        ensureLoaded();
+        readLock.lock();
+        try {
+            int row = table.row(id);
+            return row < 0 ? null : table.get(row);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @param number position of note in the list, starting from 0
+     * @return note or null if there is no such position
+     */
+    public Person get(int number) {
+        ensureReadableByPosition();
+        readLock.lock();
+        try {
+            if (recordFile == null) {
+                return number >= 0 && number < table.size() ? table.get(table.rowAt(number)) : null;
+            }
+            if (number < 0 || number >= recordFile.size()) {
+                return null;
+            }
+            Person person = recordFile.get(number);
+            if (person != null) {
+                return person;
+            }
+        } finally {
+            readLock.unlock();
+        }
+        // note of data file is invalid or can't be read, so positions are known only after loading
+        ensureLoaded();
+        return get(number);
+    }
+
+    /**
+     * @return number of notes
+     */
+    public int size() {
+        ensureReadableByPosition();
+        readLock.lock();
+        try {
+            if (recordFile != null) {
+                return recordFile.size();
+            }
+            return table.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return true if there is at least one manager
+     */
+    public boolean hasManagers() {
+        ensureLoaded();
+        readLock.lock();
+        try {
+            return table.managers() > 0;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns notes from given position in order of the list
+     *
+     * @param offset number of skipped notes
+     * @param limit  maximum number of returned notes
+     * @return copy of notes of page
+     */
+    public List<Person> page(int offset, int limit) {
+        ensureReadableByPosition();
+        readLock.lock();
+        try {
+            if (recordFile == null) {
+                int from = Math.min(offset, table.size());
+                int count = Math.min(limit, table.size() - from);
+                List<Person> page = new ArrayList<>(count);
+                for (int row = count == 0 ? 0 : table.rowAt(from); page.size() < count; row++) {
+                    if (table.isLive(row)) {
+                        page.add(table.get(row));
+                    }
+                }
+                return page;
+            }
+            int from = Math.max(offset, 0);
+            int to = (int) Math.min((long) offset + limit, recordFile.size());
+            List<Person> page = new ArrayList<>(Math.max(to - from, 0));
+            for (int number = from; number < to; number++) {
+                Person person = recordFile.get(number);
+                if (person == null) {
+                    break;
+                }
+                page.add(person);
+            }
+            if (page.size() == Math.max(to - from, 0)) {
+                return page;
+            }
+        } finally {
+            readLock.unlock();
+        }
+        // note of data file is invalid or can't be read, so positions are known only after loading
+        ensureLoaded();
+        return page(offset, limit);
+    }
+
+    /**
+     * Returns all notes as an immutable list.
+     * Copy is made once after every change, so readers without changes in between share it.
+     *
+     * @return immutable list of all notes
+     */
+    public List<Person> snapshot() {
+        ensureLoaded();
+        List<Person> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        readLock.lock();
+        try {
+            current = Collections.unmodifiableList(new ArrayList<>(table.persons()));
+            // writers are waiting for the read lock, so the copy can't be outdated here
+            snapshot = current;
+            return current;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Searching by first name by "contains" method ignoring case
+     *
+     * @param firstName part of first name
+     * @return found notes
+     */
+    public List<Person> findByFirstName(String firstName) {
+        ensureLoaded();
+        long start = Metrics.start();
+        readLock.lock();
+        try {
+            return persons(firstNameIndex.find(firstName, table.rows()));
+        } finally {
+            readLock.unlock();
+            Metrics.record(Operation.SEARCH_BY_FIRST_NAME, start);
+        }
+    }
+
+    /**
+     * Searching by last name by "contains" method ignoring case
+     *
+     * @param lastName part of last name
+     * @return found notes
+     */
+    public List<Person> findByLastName(String lastName) {
+        ensureLoaded();
+        long start = Metrics.start();
+        readLock.lock();
+        try {
+            return persons(lastNameIndex.find(lastName, table.rows()));
+        } finally {
+            readLock.unlock();
+            Metrics.record(Operation.SEARCH_BY_LAST_NAME, start);
+        }
+    }
+
+    /**
+     * Searching by first name with a few typos or which sounds the same, in Cyrillic or in Latin letters.
+     * Similar names are found by their index, so rows are not scanned
+     *
+     * @param firstName first name
+     * @return found notes
+     */
+    public List<Person> findBySimilarFirstName(String firstName) {
+        return findSimilar(firstName, similarFirstNames);
+    }
+
+    /**
+     * Searching by last name with a few typos or which sounds the same, in Cyrillic or in Latin letters,
+     * for example "Sydorov" or "Sidoroff" for "Sidorov".
+     * Similar names are found by their index, so rows are not scanned
+     *
+     * @param lastName last name
+     * @return found notes
+     */
+    public List<Person> findBySimilarLastName(String lastName) {
+        return findSimilar(lastName, similarLastNames);
+    }
+
+    private List<Person> findSimilar(String name, SimilarNameIndex index) {
+        ensureLoaded();
+        long start = Metrics.start();
+        readLock.lock();
+        try {
+            return persons(index.find(name, table.rows()));
+        } finally {
+            readLock.unlock();
+            Metrics.record(Operation.SEARCH_BY_SIMILAR_NAME, start);
+        }
+    }
+
+    /**
+     * Searching by phone number in any of formats +7/7/8
+     *
+     * @param phoneNumber valid phone number
+     * @return found notes
+     */
+    public List<Person> findByPhoneNumber(String phoneNumber) {
+        ensureLoaded();
+        long start = Metrics.start();
+        readLock.lock();
+        try {
+            return persons(phoneIndex.find(phoneNumber));
+        } finally {
+            readLock.unlock();
+            Metrics.record(Operation.SEARCH_BY_PHONE_NUMBER, start);
+        }
+    }
+
+    /**
+     * Searching by several fields at once, see {@link PersonQuery}.
+     * The most selective index gives candidates, and indexes of other fields are intersected with them,
+     * so only a few candidates are checked one by one
+     *
+     * @param query conditions of search
+     * @return found notes in order of the list
+     */
+    public List<Person> find(PersonQuery query) {
+        ensureLoaded();
+        long start = Metrics.start();
+        readLock.lock();
+        try {
+            return persons(new QueryPlan(query, table, firstNameIndex, lastNameIndex, similarFirstNames,
+                    similarLastNames, phoneIndex, birthYearView).execute());
+        } finally {
+            readLock.unlock();
+            Metrics.record(Operation.SEARCH_BY_QUERY, start);
+        }
+    }
+
+    /**
+     * Counts managers and their employees in every department.
+     * Counts are kept by the table on every change, so it takes O(departments)
+     *
+     * @return headcount of departments in alphabetical order
+     */
+    public List<DepartmentHeadcount> headcountByDepartment() {
+        ensureLoaded();
+        List<DepartmentHeadcount> headcount = new ArrayList<>();
+        readLock.lock();
+        try {
+            table.forEachDepartment((department, managers, employees) ->
+                    headcount.add(new DepartmentHeadcount(department, managers, employees)));
+        } finally {
+            readLock.unlock();
+        }
+        headcount.sort(Comparator.comparing(DepartmentHeadcount::getDepartment));
+        return headcount;
+    }
+
+    /**
+     * Counts notes by year of birth, numbers are taken from buckets of years in O(number of years)
+     *
+     * @return number of notes for every year of birth which has notes, in increasing order of years
+     */
+    public SortedMap<Integer, Integer> countByBirthYear() {
+        ensureLoaded();
+        readLock.lock();
+        try {
+            return birthYearView.counts();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Finds managers with the largest numbers of employees.
+     * Numbers of employees are taken from index of the table, so employees are not scanned
+     *
+     * @param limit maximum number of managers
+     * @return managers with numbers of their employees, the largest numbers first
+     */
+    public List<ManagerSpan> spanOfControl(int limit) {
+        ensureLoaded();
+        readLock.lock();
+        try {
+            // only the largest spans are kept, so the heap stays small; of equal spans the first rows are kept
+            PriorityQueue<long[]> largest = new PriorityQueue<>(Comparator.<long[]>comparingLong(span -> span[0])
+                    .thenComparingLong(span -> -span[1]));
+            table.forEachManager(row -> {
+                int employees = table.teamSize(row);
+                if (largest.size() < limit) {
+                    largest.add(new long[]{employees, row});
+                } else if (limit > 0 && (employees > largest.peek()[0]
+                        || employees == largest.peek()[0] && row < largest.peek()[1])) {
+                    largest.poll();
+                    largest.add(new long[]{employees, row});
+                }
+            });
+            ManagerSpan[] spans = new ManagerSpan[largest.size()];
+            for (int i = spans.length - 1; i >= 0; i--) {
+                long[] span = largest.poll();
+                spans[i] = new ManagerSpan((Manager) table.get((int) span[1]), (int) span[0]);
+            }
+            return Arrays.asList(spans);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns page of notes sorted by last name ignoring case
+     *
+     * @param offset number of skipped notes
+     * @param limit  maximum number of returned notes
+     * @return notes of page
+     */
+    public List<Person> sortedByLastName(int offset, int limit) {
+        return page(lastNameView, offset, limit);
+    }
+
+    /**
+     * Returns page of notes sorted by year of birth
+     *
+     * @param offset number of skipped notes
+     * @param limit  maximum number of returned notes
+     * @return notes of page
+     */
+    public List<Person> sortedByBirthYear(int offset, int limit) {
+        return page(birthYearView, offset, limit);
+    }
+
+    /**
+     * Checks if manager with given full name exists in the store
+     *
+     * @param managerName manager's first and last name
+     * @throws ValidationException if manager is not found
+     */
+    public void validateManager(String managerName) throws ValidationException {
+        ensureLoaded();
+        readLock.lock();
+        try {
+            validator.validateManager(managerName, table);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private List<Person> page(SortedView view, int offset, int limit) {
+        ensureLoaded();
+        long start = Metrics.start();
+        readLock.lock();
+        try {
+            int[] rows = view.page(offset, limit);
+            List<Person> page = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                page.add(table.get(row));
+            }
+            return page;
+        } finally {
+            readLock.unlock();
+            Metrics.record(Operation.SORTED_PAGE, start);
+        }
+    }
+
+    /*
+     * Deletes live rows, employees who would be left without manager are handled by policy.
+     * Everything is checked before the first change, so nothing is changed if exception is thrown.
+     * If deleted rows are enough for compaction, indexes are not updated row by row
+     * but are filled again in the same compaction pass.
+     * Should be called under write lock
+     *
+     * @return number of deleted rows
+     */
+    private int delete(int[] rows, int count, ReportsPolicy policy, long newManagerId) {
+        BitSet deleted = new BitSet(table.rows());
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (!deleted.get(rows[i])) {
+                deleted.set(rows[i]);
+                rows[unique++] = rows[i];
+            }
+        }
+        count = unique;
+        IntList orphans = orphans(rows, count, deleted);
+        if (!orphans.isEmpty()) {
+            switch (policy) {
+                case BLOCK:
+                    throw new ValidationException(ValidationError.MANAGER_HAS_EMPLOYEES,
+                            ValidationError.MANAGER_HAS_EMPLOYEES.getMessage() + " (" + orphans.size() + ")");
+                case REASSIGN:
+                    reassign(orphans, newManagerId, deleted);
+                    break;
+                case CASCADE:
+                    rows = Arrays.copyOf(rows, count + orphans.size());
+                    for (int i = 0; i < orphans.size(); i++) {
+                        rows[count++] = orphans.get(i);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown policy " + policy);
+            }
+        }
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = table.id(rows[i]);
+            table.delete(rows[i]);
+        }
+        if (!compactRowsIfNeeded()) {
+            for (int i = 0; i < count; i++) {
+                Person person = table.get(rows[i]);
+                for (PersonIndex index : indexes) {
+                    index.remove(rows[i], person);
+                }
+            }
+        }
+        snapshot = null;
+        if (journal != null) {
+            journal.logDelete(ids);
+            changed();
+        }
+        return count;
+    }
+
+    /*
+     * Finds employees which are not deleted and whose manager is deleted together with all its namesakes
+     */
+    private IntList orphans(int[] rows, int count, BitSet deleted) {
+        IntList orphans = new IntList();
+        BitSet found = new BitSet();
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            if (!table.isManager(row) || !isDeletedWithNamesakes(row, deleted)) {
+                continue;
+            }
+            for (int employee : table.employees(row)) {
+                if (!deleted.get(employee) && !found.get(employee)) {
+                    found.set(employee);
+                    orphans.add(employee);
+                }
+            }
+        }
+        return orphans;
+    }
+
+    private boolean isDeletedWithNamesakes(int managerRow, BitSet deleted) {
+        for (int namesake : table.namesakes(managerRow)) {
+            if (!deleted.get(namesake)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Moves employees to manager who is not deleted and writes changes to journal
+     */
+    private void reassign(IntList employees, long newManagerId, BitSet deleted) {
+        int managerRow = table.row(newManagerId);
+        if (managerRow < 0 || !table.isManager(managerRow) || deleted.get(managerRow)) {
+            throw new ValidationException(ValidationError.MANAGER_NOT_FOUND,
+                    "New manager should be an existing manager who is not deleted");
+        }
+        String manager = table.firstName(managerRow) + " " + table.lastName(managerRow);
+        List<Person> moved = new ArrayList<>(employees.size());
+        for (int i = 0; i < employees.size(); i++) {
+            table.setManager(employees.get(i), manager);
+            moved.add(table.get(employees.get(i)));
+        }
+        if (journal != null) {
+            journal.logUpdate(moved);
+            changed();
+        }
+    }
+
+    /*
+     * Note without id or with id which is already taken gets a new id.
+     * Should be called under write lock
+     */
+    private void insert(Person person) {
+        long id = person.getId();
+        if (id <= Person.NO_ID || table.row(id) >= 0) {
+            if (id > Person.NO_ID) {
+                System.err.println("Id " + id + " is used by several notes, note gets id " + nextId);
+            }
+            id = nextId;
+        }
+        nextId = Math.max(nextId, id + 1);
+        int row = table.add(id, person);
+        for (PersonIndex index : indexes) {
+            index.add(row, person);
+        }
+        snapshot = null;
+    }
+
+    private List<Person> persons(IntList rows) {
+        List<Person> persons = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            persons.add(table.get(rows.get(i)));
+        }
+        return persons;
+    }
+
+    /*
+     * Renumbers rows of the table and fills indexes again.
+     * Should be called under write lock
+     *
+     * @return true if rows were compacted
+     */
+    private boolean compactRowsIfNeeded() {
+        int deletedRows = table.rows() - table.size();
+        if (deletedRows < ROWS_COMPACTION_THRESHOLD || deletedRows < table.rows() / 4) {
+            return false;
+        }
+        table.compact();
+        for (PersonIndex index : indexes) {
+            index.clear();
+        }
+        for (int row = 0; row < table.rows(); row++) {
+            Person person = table.get(row);
+            for (PersonIndex index : indexes) {
+                index.add(row, person);
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Flushes journal to disk after write lock is released, so readers don't wait for the disk.
+     * Writers which come during a flush share the next one
+     */
+    private void syncJournal() {
+        PersonJournal current = journal;
+        if (current != null) {
+            current.sync();
+        }
+    }
+
+    /*
+     * Schedules save of data file after change which is written to journal.
+     * Should be called under write lock
+     */
+    private void changed() {
+        if (saver.isShutdown()) {
+            return;
+        }
+        if (firstUnsavedChange == 0) {
+            firstUnsavedChange = System.nanoTime();
+        }
+        if (isSaveScheduled.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastSaveStart + saveInterval - System.nanoTime());
+            saver.schedule(this::save, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /*
+     * Runs in the saver thread. Changes which are made after the copy of notes is taken schedule the next save.
+     * Returns true if data file was saved
+     */
+    private boolean save() {
+        isSaveScheduled.set(false);
+        long start = Metrics.start();
+        List<Person> persons;
+        PersonJournal.Mark mark;
+        long changedAt;
+        readLock.lock();
+        try {
+            lastSaveStart = System.nanoTime();
+            persons = table.copyPersons();
+            mark = journal.mark();
+            changedAt = firstUnsavedChange;
+            firstUnsavedChange = 0;
+        } finally {
+            readLock.unlock();
+        }
+        if (journal.compact(persons, serializer, mark)) {
+            Metrics.record(Operation.SAVE, start, persons.size());
+            return true;
+        }
+        writeLock.lock();
+        try {
+            // changes are still only in journal, they are saved again after interval
+            firstUnsavedChange = changedAt;
+            changed();
+        } finally {
+            writeLock.unlock();
+        }
+        return false;
+    }
+
+    /**
+     * @return milliseconds since the oldest change which is not saved to data file yet, 0 if all changes are saved
+     */
+    public long getSaveLag() {
+        long changedAt = firstUnsavedChange;
+        return changedAt == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - changedAt);
+    }
+}
@@ -0,0 +1,145 @@
+package com.palyaeva.store;
+
+/**
+ * Compound query for {@link NotebookStore#find(PersonQuery)}: note is found if it meets all given conditions.
+ * Conditions which are not given are not checked, so empty query finds all notes.
+ * <p>
+ * Example: {@code new PersonQuery().lastNameContains("ov").bornBetween(1980, 1990).department("IT")}
+ */
+public class PersonQuery {
+
+    private String firstName;
+    private String lastName;
+    private String similarFirstName;
+    private String similarLastName;
+    private String phoneNumber;
+    private int fromYear = Integer.MIN_VALUE;
+    private int toYear = Integer.MAX_VALUE;
+    private String department;
+    private String manager;
+
+    /**
+     * @param firstName part of first name, case is ignored
+     * @return this query
+     */
+    public PersonQuery firstNameContains(String firstName) {
+        this.firstName = firstName;
+        return this;
+    }
+
+    /**
+     * @param lastName part of last name, case is ignored
+     * @return this query
+     */
+    public PersonQuery lastNameContains(String lastName) {
+        this.lastName = lastName;
+        return this;
+    }
+
+    /**
+     * Finds first name with a few typos or which sounds the same, in Cyrillic or in Latin letters
+     *
+     * @param firstName first name
+     * @return this query
+     * @see com.palyaeva.index.SimilarNameIndex
+     */
+    public PersonQuery firstNameSimilarTo(String firstName) {
+        this.similarFirstName = firstName;
+        return this;
+    }
+
+    /**
+     * Finds last name with a few typos or which sounds the same, in Cyrillic or in Latin letters,
+     * for example "Sydorov" or "Sidoroff" for "Sidorov"
+     *
+     * @param lastName last name
+     * @return this query
+     * @see com.palyaeva.index.SimilarNameIndex
+     */
+    public PersonQuery lastNameSimilarTo(String lastName) {
+        this.similarLastName = lastName;
+        return this;
+    }
+
+    /**
+     * @param phoneNumber valid phone number in any of formats +7/7/8
+     * @return this query
+     */
+    public PersonQuery phoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+        return this;
+    }
+
+    /**
+     * @param fromYear first year of birth
+     * @param toYear   last year of birth, inclusive
+     * @return this query
+     */
+    public PersonQuery bornBetween(int fromYear, int toYear) {
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        return this;
+    }
+
+    /**
+     * Only managers have department, so employees are not found
+     *
+     * @param department exact name of department
+     * @return this query
+     */
+    public PersonQuery department(String department) {
+        this.department = department;
+        return this;
+    }
+
+    /**
+     * Only employees have manager, so managers are not found
+     *
+     * @param manager manager's first and last name
+     * @return this query
+     */
+    public PersonQuery managedBy(String manager) {
+        this.manager = manager;
+        return this;
+    }
+
+    String getFirstName() {
+        return firstName;
+    }
+
+    String getLastName() {
+        return lastName;
+    }
+
+    String getSimilarFirstName() {
+        return similarFirstName;
+    }
+
+    String getSimilarLastName() {
+        return similarLastName;
+    }
+
+    String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    boolean hasBirthYears() {
+        return fromYear != Integer.MIN_VALUE || toYear != Integer.MAX_VALUE;
+    }
+
+    int getFromYear() {
+        return fromYear;
+    }
+
+    int getToYear() {
+        return toYear;
+    }
+
+    String getDepartment() {
+        return department;
+    }
+
+    String getManager() {
+        return manager;
+    }
+}
@@ -0,0 +1,680 @@
+package com.palyaeva.store;
+
+import com.palyaeva.entity.Employee;
+import com.palyaeva.entity.Manager;
+import com.palyaeva.entity.Person;
+import com.palyaeva.index.IntList;
+import com.palyaeva.index.LongIntHashMap;
+import com.palyaeva.index.LongObjectHashMap;
+import com.palyaeva.index.ManagerDirectory;
+import com.palyaeva.index.ManagerLookup;
+import com.palyaeva.index.PhoneIndex;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Columnar storage of notes. Every note is a row, and every field is kept in its own primitive column:
+ * <ul>
+ * <li>id - {@code long}, rows are found by id through a hash map of primitives</li>
+ * <li>first name, last name, department and not linked manager's name - numbers of strings in dictionary</li>
+ * <li>year of birth - {@code short}</li>
+ * <li>phone number - 10 digits in {@code long} and its prefix +7/7/8 in flags</li>
+ * <li>employee's manager - row of the manager</li>
+ * </ul>
+ * So a note takes about 31 bytes instead of a person object with its own strings.
+ * {@link Person} objects are created on access and are not kept by the table.
+ * <p>
+ * Rows are only appended. Deleted row is marked and keeps its values,
+ * so row numbers don't change until {@link #compact()} renumbers rows.
+ * Only manager of employee and department of manager can be changed in place.
+ * <p>
+ * Employees are found by name of their manager, and managers are found by department,
+ * without scanning the table. Number of employees of managers of every department is changed
+ * together with these indexes, so headcount of departments is counted without scanning too.
+ * The table is not thread-safe.
+ */
+final class PersonTable implements ManagerLookup {
+
+    /*
+     * Numbers of live rows are counted by blocks for finding row by position
+     */
+    private static final int BLOCK_SHIFT = 10;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /*
+     * Flags of row: format of phone number in two lower bits and type of person
+     */
+    private static final int PHONE_FORMAT_MASK = 3;
+    private static final int RAW_PHONE = 3;
+    private static final int MANAGER_FLAG = 4;
+    private static final String[] PHONE_PREFIXES = {"+7", "7", "8"};
+    private static final int PHONE_DIGITS = 10;
+
+    private final StringDictionary dictionary;
+
+    private long[] ids = new long[DEFAULT_CAPACITY];
+    private int[] firstNames = new int[DEFAULT_CAPACITY];
+    private int[] lastNames = new int[DEFAULT_CAPACITY];
+    private short[] birthYears = new short[DEFAULT_CAPACITY];
+    private long[] phoneNumbers = new long[DEFAULT_CAPACITY];
+    private byte[] flags = new byte[DEFAULT_CAPACITY];
+    /*
+     * Department of manager is a number of string.
+     * Manager of employee is a row of manager if it is not negative,
+     * otherwise it is -(number of string) - 1 for name which is not linked to a row
+     */
+    private int[] details = new int[DEFAULT_CAPACITY];
+
+    private final LongIntHashMap rowsById = new LongIntHashMap();
+
+    private final BitSet deleted;
+    private int[] liveInBlock = new int[1];
+    private int rows;
+    private int size;
+
+    /*
+     * Rows of managers by numbers of first and last name
+     */
+    private final LongObjectHashMap<IntList> managerRows = new LongObjectHashMap<>();
+    private int managers;
+
+    /*
+     * Rows of employees by numbers of first and last name of their manager,
+     * manager's name which is not "first name" + whitespaces + "last name" is not indexed
+     */
+    private final LongObjectHashMap<IntList> employeeRows = new LongObjectHashMap<>();
+
+    /*
+     * Rows of managers by number of department
+     */
+    private final LongObjectHashMap<IntList> departmentRows = new LongObjectHashMap<>();
+
+    /*
+     * Number of employees of managers by number of department, it is changed together with indexes.
+     * Employee of several namesake managers is counted for every one of them
+     */
+    private final LongIntHashMap departmentEmployees = new LongIntHashMap();
+
+    PersonTable() {
+        dictionary = new StringDictionary();
+        deleted = new BitSet();
+    }
+
+    /*
+     * Copy of columns and dictionary for reading notes by row, indexes are not copied
+     */
+    private PersonTable(PersonTable table) {
+        dictionary = table.dictionary.copy();
+        deleted = (BitSet) table.deleted.clone();
+        rows = table.rows;
+        size = table.size;
+        ids = Arrays.copyOf(table.ids, rows);
+        firstNames = Arrays.copyOf(table.firstNames, rows);
+        lastNames = Arrays.copyOf(table.lastNames, rows);
+        birthYears = Arrays.copyOf(table.birthYears, rows);
+        phoneNumbers = Arrays.copyOf(table.phoneNumbers, rows);
+        flags = Arrays.copyOf(table.flags, rows);
+        details = Arrays.copyOf(table.details, rows);
+    }
+
+    /**
+     * Appends note to the table
+     *
+     * @param id     unique id of note
+     * @param person added person
+     * @return row of note
+     */
+    int add(long id, Person person) {
+        if (person.getBirthYear() < Short.MIN_VALUE || person.getBirthYear() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Year of birth is out of range: " + person.getBirthYear());
+        }
+        ensureCapacity(rows + 1);
+        int row = rows;
+        ids[row] = id;
+        rowsById.put(id, row);
+        firstNames[row] = dictionary.idOf(person.getFirstName());
+        lastNames[row] = dictionary.idOf(person.getLastName());
+        birthYears[row] = (short) person.getBirthYear();
+        setPhoneNumber(row, person.getPhoneNumber());
+        if (person instanceof Manager) {
+            flags[row] |= MANAGER_FLAG;
+            details[row] = dictionary.idOf(((Manager) person).getDepartment());
+            rowsOf(managerRows, nameKey(firstNames[row], lastNames[row])).add(row);
+            managers++;
+            rowsOf(departmentRows, details[row]).add(row);
+            addDepartmentEmployees(details[row], team(nameKey(firstNames[row], lastNames[row])));
+        } else {
+            details[row] = link(((Employee) person).getManager());
+            long managerKey = managerKey(row);
+            if (managerKey >= 0) {
+                rowsOf(employeeRows, managerKey).add(row);
+                countEmployee(managerKey, 1);
+            }
+        }
+        rows++;
+        size++;
+        liveInBlock[row >> BLOCK_SHIFT]++;
+        return row;
+    }
+
+    /**
+     * Creates person from values of row
+     *
+     * @param row row of note, can be deleted
+     * @return new manager or employee
+     */
+    Person get(int row) {
+        String firstName = dictionary.get(firstNames[row]);
+        String lastName = dictionary.get(lastNames[row]);
+        if (isManager(row)) {
+            return new Manager(ids[row], firstName, lastName, birthYears[row], phoneNumber(row),
+                    dictionary.get(details[row]));
+        }
+        return new Employee(ids[row], firstName, lastName, birthYears[row], phoneNumber(row), managerName(row));
+    }
+
+    /**
+     * Marks row as deleted, its values are kept until {@link #compact()}
+     *
+     * @param row live row
+     */
+    void delete(int row) {
+        if (isManager(row)) {
+            removeRow(managerRows, nameKey(firstNames[row], lastNames[row]), row);
+            managers--;
+            removeRow(departmentRows, details[row], row);
+            addDepartmentEmployees(details[row], -team(nameKey(firstNames[row], lastNames[row])));
+        } else {
+            long managerKey = managerKey(row);
+            removeRow(employeeRows, managerKey, row);
+            countEmployee(managerKey, -1);
+        }
+        rowsById.remove(ids[row]);
+        deleted.set(row);
+        liveInBlock[row >> BLOCK_SHIFT]--;
+        size--;
+    }
+
+    /**
+     * @param id id of note
+     * @return live row of note or -1 if there is no such note
+     */
+    int row(long id) {
+        int row = rowsById.get(id);
+        return row == LongIntHashMap.NO_VALUE ? -1 : row;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    boolean isLive(int row) {
+        return row < rows && !deleted.get(row);
+    }
+
+    /**
+     * @return number of rows including deleted ones
+     */
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * @return number of live rows
+     */
+    int size() {
+        return size;
+    }
+
+    int managers() {
+        return managers;
+    }
+
+    String firstName(int row) {
+        return dictionary.get(firstNames[row]);
+    }
+
+    String lastName(int row) {
+        return dictionary.get(lastNames[row]);
+    }
+
+    int birthYear(int row) {
+        return birthYears[row];
+    }
+
+    /**
+     * @param row row of manager
+     * @return department of manager
+     */
+    String department(int row) {
+        return dictionary.get(details[row]);
+    }
+
+    boolean isManager(int row) {
+        return (flags[row] & MANAGER_FLAG) != 0;
+    }
+
+    /**
+     * Finds live row by position of note in the list
+     *
+     * @param position position from 0 to {@link #size()} - 1
+     * @return row of note
+     */
+    int rowAt(int position) {
+        if (size == rows) {
+            return position;
+        }
+        int block = 0;
+        while (position >= liveInBlock[block]) {
+            position -= liveInBlock[block++];
+        }
+        int row = deleted.nextClearBit(block << BLOCK_SHIFT);
+        for (; position > 0; position--) {
+            row = deleted.nextClearBit(row + 1);
+        }
+        return row;
+    }
+
+    /**
+     * @param managerRow live row of manager
+     * @return rows of managers with the same first and last name, including this one
+     */
+    int[] namesakes(int managerRow) {
+        return managerRows.get(nameKey(firstNames[managerRow], lastNames[managerRow])).toArray();
+    }
+
+    /**
+     * Finds employees whose manager has the same name as manager in given row
+     *
+     * @param managerRow row of manager
+     * @return rows of employees in increasing order
+     */
+    int[] employees(int managerRow) {
+        IntList rows = employeeRows.get(nameKey(firstNames[managerRow], lastNames[managerRow]));
+        return rows == null ? new int[0] : rows.toArray();
+    }
+
+    /**
+     * Finds employees by name of their manager, manager doesn't have to exist
+     *
+     * @param manager manager's first and last name
+     * @return rows of employees in increasing order,
+     * or null if name is not "first name" + whitespaces + "last name" and such employees are not indexed
+     */
+    int[] employeesOf(String manager) {
+        String[] fullName = ManagerDirectory.splitFullName(manager);
+        if (fullName == null) {
+            return null;
+        }
+        int first = dictionary.find(fullName[0]);
+        int last = dictionary.find(fullName[1]);
+        IntList rows = first < 0 || last < 0 ? null : employeeRows.get(nameKey(first, last));
+        return rows == null ? new int[0] : rows.toArray();
+    }
+
+    /**
+     * Changes manager of employee
+     *
+     * @param row     live row of employee
+     * @param manager new manager's first and last name
+     */
+    void setManager(int row, String manager) {
+        long oldKey = managerKey(row);
+        removeRow(employeeRows, oldKey, row);
+        countEmployee(oldKey, -1);
+        details[row] = link(manager);
+        long managerKey = managerKey(row);
+        if (managerKey >= 0) {
+            rowsOf(employeeRows, managerKey).addSorted(row);
+            countEmployee(managerKey, 1);
+        }
+    }
+
+    /**
+     * Finds managers of department
+     *
+     * @param department name of department
+     * @return rows of managers in increasing order
+     */
+    int[] managersOf(String department) {
+        int id = dictionary.find(department);
+        IntList rows = id < 0 ? null : departmentRows.get(id);
+        return rows == null ? new int[0] : rows.toArray();
+    }
+
+    /**
+     * Changes department of manager
+     *
+     * @param row        live row of manager
+     * @param department new department
+     */
+    void setDepartment(int row, String department) {
+        int team = team(nameKey(firstNames[row], lastNames[row]));
+        removeRow(departmentRows, details[row], row);
+        addDepartmentEmployees(details[row], -team);
+        details[row] = dictionary.idOf(department);
+        rowsOf(departmentRows, details[row]).addSorted(row);
+        addDepartmentEmployees(details[row], team);
+    }
+
+    /**
+     * Moves all managers of one department to another department.
+     * Lists of managers of both departments are merged once, so it takes O(managers of both departments).
+     *
+     * @param from old department
+     * @param to   new department
+     * @return rows of moved managers in increasing order
+     */
+    int[] moveDepartment(String from, String to) {
+        int fromId = dictionary.find(from);
+        IntList moved = fromId < 0 ? null : departmentRows.get(fromId);
+        if (moved == null || from.equals(to)) {
+            return new int[0];
+        }
+        int toId = dictionary.idOf(to);
+        for (int i = 0; i < moved.size(); i++) {
+            details[moved.get(i)] = toId;
+        }
+        departmentRows.remove(fromId);
+        IntList existing = departmentRows.get(toId);
+        departmentRows.put(toId, existing == null ? moved : IntList.merge(existing, moved));
+        int employees = departmentEmployees.remove(fromId);
+        if (employees != LongIntHashMap.NO_VALUE) {
+            addDepartmentEmployees(toId, employees);
+        }
+        return moved.toArray();
+    }
+
+    /**
+     * @param managerRow row of manager
+     * @return number of employees of manager, namesake managers have the same employees
+     */
+    int teamSize(int managerRow) {
+        return team(nameKey(firstNames[managerRow], lastNames[managerRow]));
+    }
+
+    /**
+     * Receiver of counts for {@link #forEachDepartment(DepartmentConsumer)}
+     */
+    @FunctionalInterface
+    interface DepartmentConsumer {
+        void accept(String department, int managers, int employees);
+    }
+
+    /**
+     * Passes counts of every department which has managers, it takes O(departments)
+     *
+     * @param consumer receiver of department, number of its managers and number of their employees
+     */
+    void forEachDepartment(DepartmentConsumer consumer) {
+        departmentRows.forEach((id, rows) -> {
+            int employees = departmentEmployees.get(id);
+            consumer.accept(dictionary.get((int) id), rows.size(),
+                    employees == LongIntHashMap.NO_VALUE ? 0 : employees);
+        });
+    }
+
+    /**
+     * Calls consumer for rows of all managers, it takes O(managers)
+     *
+     * @param consumer receiver of rows
+     */
+    void forEachManager(IntConsumer consumer) {
+        departmentRows.forEach((id, rows) -> {
+            for (int i = 0; i < rows.size(); i++) {
+                consumer.accept(rows.get(i));
+            }
+        });
+    }
+
+    @Override
+    public boolean contains(String firstName, String lastName) {
+        int first = dictionary.find(firstName);
+        int last = dictionary.find(lastName);
+        return first >= 0 && last >= 0 && managerRows.containsKey(nameKey(first, last));
+    }
+
+    /**
+     * Removes deleted rows and renumbers live rows keeping their order.
+     * Employees of deleted managers keep manager's name as a string.
+     *
+     * @return new row for every old row or -1 for deleted rows
+     */
+    int[] compact() {
+        int[] renumbered = new int[rows];
+        int next = 0;
+        for (int row = 0; row < rows; row++) {
+            renumbered[row] = deleted.get(row) ? -1 : next++;
+        }
+        // links are changed before moving, because names of deleted managers are still in their rows
+        for (int row = 0; row < rows; row++) {
+            if (renumbered[row] >= 0 && !isManager(row) && details[row] >= 0) {
+                int manager = details[row];
+                details[row] = renumbered[manager] >= 0
+                        ? renumbered[manager]
+                        : -dictionary.idOf(firstName(manager) + " " + lastName(manager)) - 1;
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            int target = renumbered[row];
+            if (target >= 0 && target != row) {
+                ids[target] = ids[row];
+                firstNames[target] = firstNames[row];
+                lastNames[target] = lastNames[row];
+                birthYears[target] = birthYears[row];
+                phoneNumbers[target] = phoneNumbers[row];
+                flags[target] = flags[row];
+                details[target] = details[row];
+            }
+        }
+        rows = size;
+        deleted.clear();
+        liveInBlock = new int[(Math.max(rows, 1) >> BLOCK_SHIFT) + 1];
+        renumber(employeeRows, renumbered);
+        renumber(departmentRows, renumbered);
+        managerRows.clear();
+        rowsById.clear();
+        for (int row = 0; row < rows; row++) {
+            liveInBlock[row >> BLOCK_SHIFT]++;
+            rowsById.put(ids[row], row);
+            if (isManager(row)) {
+                rowsOf(managerRows, nameKey(firstNames[row], lastNames[row])).add(row);
+            }
+        }
+        return renumbered;
+    }
+
+    /**
+     * Copies columns, so notes can be read without lock while the table is changed.
+     * Copy takes about as much memory as the columns, persons are created when the list is read
+     *
+     * @return live notes in order of rows
+     */
+    List<Person> copyPersons() {
+        return new PersonTable(this).persons();
+    }
+
+    /**
+     * Returns live notes in order of rows.
+     * Persons are created on access, list is valid until the table is changed.
+     *
+     * @return read-only list of notes
+     */
+    List<Person> persons() {
+        int[] live = new int[size];
+        for (int row = deleted.nextClearBit(0), i = 0; i < size; row = deleted.nextClearBit(row + 1)) {
+            live[i++] = row;
+        }
+        return new RowList(live);
+    }
+
+    private final class RowList extends AbstractList<Person> implements RandomAccess {
+        private final int[] rows;
+
+        private RowList(int[] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public Person get(int index) {
+            return PersonTable.this.get(rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+    }
+
+    private void setPhoneNumber(int row, String phoneNumber) {
+        long number = PhoneIndex.normalize(phoneNumber);
+        if (number < 0) {
+            phoneNumbers[row] = dictionary.idOf(phoneNumber);
+            flags[row] = RAW_PHONE;
+        } else {
+            phoneNumbers[row] = number;
+            flags[row] = (byte) (phoneNumber.charAt(0) == '+' ? 0 : phoneNumber.charAt(0) == '7' ? 1 : 2);
+        }
+    }
+
+    String phoneNumber(int row) {
+        int format = flags[row] & PHONE_FORMAT_MASK;
+        if (format == RAW_PHONE) {
+            return dictionary.get((int) phoneNumbers[row]);
+        }
+        String prefix = PHONE_PREFIXES[format];
+        char[] digits = new char[prefix.length() + PHONE_DIGITS];
+        prefix.getChars(0, prefix.length(), digits, 0);
+        long number = phoneNumbers[row];
+        for (int i = digits.length - 1; i >= prefix.length(); i--) {
+            digits[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * @param row row of employee
+     * @return manager's name as it was added
+     */
+    String managerName(int row) {
+        int manager = details[row];
+        if (manager < 0) {
+            return dictionary.get(-manager - 1);
+        }
+        return firstName(manager) + " " + lastName(manager);
+    }
+
+    /*
+     * Employee is linked to a row only if name of manager is exactly "first name" + " " + "last name",
+     * so the name is restored without changes
+     */
+    private int link(String manager) {
+        int space = manager.indexOf(' ');
+        if (space > 0 && manager.indexOf(' ', space + 1) < 0) {
+            int first = dictionary.find(manager.substring(0, space));
+            int last = dictionary.find(manager.substring(space + 1));
+            IntList namesakes = first < 0 || last < 0 ? null : managerRows.get(nameKey(first, last));
+            if (namesakes != null) {
+                return namesakes.get(0);
+            }
+        }
+        return -dictionary.idOf(manager) - 1;
+    }
+
+    /*
+     * Key of manager's name of employee in given row or -1 if the name is not indexed
+     */
+    private long managerKey(int row) {
+        int manager = details[row];
+        if (manager >= 0) {
+            return nameKey(firstNames[manager], lastNames[manager]);
+        }
+        String[] fullName = ManagerDirectory.splitFullName(dictionary.get(-manager - 1));
+        if (fullName == null) {
+            return -1;
+        }
+        return nameKey(dictionary.idOf(fullName[0]), dictionary.idOf(fullName[1]));
+    }
+
+    private int team(long nameKey) {
+        IntList rows = employeeRows.get(nameKey);
+        return rows == null ? 0 : rows.size();
+    }
+
+    /*
+     * Employee is counted in departments of all live managers with its manager's name
+     */
+    private void countEmployee(long managerKey, int delta) {
+        IntList managers = managerKey < 0 ? null : managerRows.get(managerKey);
+        if (managers != null) {
+            for (int i = 0; i < managers.size(); i++) {
+                addDepartmentEmployees(details[managers.get(i)], delta);
+            }
+        }
+    }
+
+    private void addDepartmentEmployees(int department, int delta) {
+        if (delta != 0) {
+            departmentEmployees.add(department, delta);
+        }
+    }
+
+    private static IntList rowsOf(LongObjectHashMap<IntList> index, long key) {
+        IntList rows = index.get(key);
+        if (rows == null) {
+            rows = new IntList(1);
+            index.put(key, rows);
+        }
+        return rows;
+    }
+
+    private static void removeRow(LongObjectHashMap<IntList> index, long key, int row) {
+        IntList rows = key < 0 ? null : index.get(key);
+        int position = rows == null ? -1 : rows.indexOfSorted(row);
+        if (position >= 0) {
+            rows.removeAt(position);
+            if (rows.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /*
+     * Deleted rows are already removed from index, and renumbering keeps order of rows
+     */
+    private static void renumber(LongObjectHashMap<IntList> index, int[] renumbered) {
+        index.forEach((key, rows) -> {
+            for (int i = 0; i < rows.size(); i++) {
+                rows.set(i, renumbered[rows.get(i)]);
+            }
+        });
+    }
+
+    private static long nameKey(int firstName, int lastName) {
+        return (long) firstName << 32 | (lastName & 0xFFFFFFFFL);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > firstNames.length) {
+            int length = Math.max(capacity, firstNames.length + (firstNames.length >> 1));
+            ids = Arrays.copyOf(ids, length);
+            firstNames = Arrays.copyOf(firstNames, length);
+            lastNames = Arrays.copyOf(lastNames, length);
+            birthYears = Arrays.copyOf(birthYears, length);
+            phoneNumbers = Arrays.copyOf(phoneNumbers, length);
+            flags = Arrays.copyOf(flags, length);
+            details = Arrays.copyOf(details, length);
+        }
+        int blocks = (capacity >> BLOCK_SHIFT) + 1;
+        if (blocks > liveInBlock.length) {
+            liveInBlock = Arrays.copyOf(liveInBlock, blocks);
+        }
+    }
+}
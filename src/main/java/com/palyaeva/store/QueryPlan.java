@@ -0,0 +1,197 @@
+package com.palyaeva.store;
+
+import com.palyaeva.index.BirthYearView;
+import com.palyaeva.index.IntList;
+import com.palyaeva.index.NGramIndex;
+import com.palyaeva.index.PhoneIndex;
+import com.palyaeva.index.SimilarNameIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Plan of {@link PersonQuery} over rows of {@link PersonTable}.
+ * <p>
+ * Every condition gets an estimate of rows which its index would give without running the search:
+ * names of up to 3 letters by their own list of rows and longer names by the shortest list of their trigrams,
+ * years of birth by sizes of year buckets,
+ * similar names, phone number, department and manager by their exact lists of rows.
+ * Empty names and manager's name which is not first and last name have no index.
+ * <p>
+ * Rows of the most selective condition become a bitmap of candidates over row numbers.
+ * Next conditions are taken in order of their estimates and their rows are intersected with candidates
+ * while index gives not many more rows than there are candidates.
+ * Only the remaining conditions are checked one candidate at a time.
+ * If no condition has an index, all rows are checked.
+ * <p>
+ * Plan is made and executed under read lock of the store.
+ */
+final class QueryPlan {
+
+    /*
+     * Setting bits of one row from index is cheaper than checking a candidate,
+     * so index is used while it gives no more than this number of rows per candidate
+     */
+    private static final int INDEX_ROWS_PER_CANDIDATE = 4;
+
+    private final PersonTable table;
+    private final List<Condition> indexed = new ArrayList<>();
+    private final List<Condition> checked = new ArrayList<>();
+
+    QueryPlan(PersonQuery query, PersonTable table, NGramIndex firstNameIndex, NGramIndex lastNameIndex,
+              SimilarNameIndex similarFirstNames, SimilarNameIndex similarLastNames,
+              PhoneIndex phoneIndex, BirthYearView birthYearView) {
+        this.table = table;
+        if (query.getFirstName() != null) {
+            addNameCondition(query.getFirstName(), firstNameIndex);
+        }
+        if (query.getLastName() != null) {
+            addNameCondition(query.getLastName(), lastNameIndex);
+        }
+        if (query.getSimilarFirstName() != null) {
+            addSimilarNameCondition(query.getSimilarFirstName(), similarFirstNames);
+        }
+        if (query.getSimilarLastName() != null) {
+            addSimilarNameCondition(query.getSimilarLastName(), similarLastNames);
+        }
+        if (query.getPhoneNumber() != null) {
+            long number = PhoneIndex.normalize(query.getPhoneNumber());
+            IntList rows = phoneIndex.find(query.getPhoneNumber());
+            add(new Condition(rows.size(), bits -> setAll(bits, rows.toArray()), true,
+                    row -> number >= 0 && PhoneIndex.normalize(table.phoneNumber(row)) == number));
+        }
+        if (query.hasBirthYears()) {
+            int fromYear = query.getFromYear();
+            int toYear = query.getToYear();
+            add(new Condition(birthYearView.count(fromYear, toYear),
+                    bits -> birthYearView.addRows(fromYear, toYear, bits), BirthYearView.isExact(fromYear, toYear),
+                    row -> table.birthYear(row) >= fromYear && table.birthYear(row) <= toYear));
+        }
+        if (query.getDepartment() != null) {
+            String department = query.getDepartment();
+            int[] rows = table.managersOf(department);
+            add(new Condition(rows.length, bits -> setAll(bits, rows), true,
+                    row -> table.isManager(row) && table.department(row).equals(department)));
+        }
+        if (query.getManager() != null) {
+            String manager = query.getManager();
+            int[] rows = table.employeesOf(manager);
+            if (rows == null) {
+                add(new Condition(-1, null, false,
+                        row -> !table.isManager(row) && table.managerName(row).equals(manager)));
+            } else {
+                add(new Condition(rows.length, bits -> setAll(bits, rows), true,
+                        row -> Arrays.binarySearch(rows, row) >= 0));
+            }
+        }
+        indexed.sort(Comparator.comparingInt(condition -> condition.estimate));
+    }
+
+    /**
+     * @return found live rows in increasing order
+     */
+    IntList execute() {
+        IntList found = new IntList();
+        List<Condition> checks = new ArrayList<>();
+        BitSet candidates = null;
+        for (Condition condition : indexed) {
+            if (candidates == null) {
+                candidates = new BitSet(table.rows());
+                condition.rows.accept(candidates);
+            } else if (candidates.isEmpty()) {
+                return found;
+            } else if (condition.estimate <= (long) candidates.cardinality() * INDEX_ROWS_PER_CANDIDATE) {
+                BitSet rows = new BitSet(table.rows());
+                condition.rows.accept(rows);
+                candidates.and(rows);
+            } else {
+                checks.add(condition);
+                continue;
+            }
+            if (!condition.isExact) {
+                checks.add(condition);
+            }
+        }
+        checks.addAll(checked);
+        if (candidates == null) {
+            for (int row = 0; row < table.rows(); row++) {
+                if (table.isLive(row) && test(row, checks)) {
+                    found.add(row);
+                }
+            }
+            return found;
+        }
+        for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+            if (table.isLive(row) && test(row, checks)) {
+                found.add(row);
+            }
+        }
+        return found;
+    }
+
+    private void addNameCondition(String query, NGramIndex index) {
+        int estimate = index.estimate(query);
+        add(new Condition(estimate, bits -> {
+            IntList rows = index.find(query, table.rows());
+            for (int i = 0; i < rows.size(); i++) {
+                bits.set(rows.get(i));
+            }
+        }, true, index.matcher(query)));
+    }
+
+    private void addSimilarNameCondition(String query, SimilarNameIndex index) {
+        IntList rows = index.find(query, table.rows());
+        add(new Condition(rows.size(), bits -> setAll(bits, rows.toArray()), true, index.matcher(query)));
+    }
+
+    private void add(Condition condition) {
+        if (condition.estimate < 0) {
+            checked.add(condition);
+        } else {
+            indexed.add(condition);
+        }
+    }
+
+    private static boolean test(int row, List<Condition> checks) {
+        for (Condition condition : checks) {
+            if (!condition.check.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void setAll(BitSet bits, int[] rows) {
+        for (int row : rows) {
+            bits.set(row);
+        }
+    }
+
+    /**
+     * Condition of query with its index
+     */
+    private static final class Condition {
+        /*
+         * Number of rows given by index, -1 if condition has no index
+         */
+        private final int estimate;
+        private final Consumer<BitSet> rows;
+        /*
+         * False if index can give rows which don't meet condition, then they are checked too
+         */
+        private final boolean isExact;
+        private final IntPredicate check;
+
+        private Condition(int estimate, Consumer<BitSet> rows, boolean isExact, IntPredicate check) {
+            this.estimate = estimate;
+            this.rows = rows;
+            this.isExact = isExact;
+            this.check = check;
+        }
+    }
+}
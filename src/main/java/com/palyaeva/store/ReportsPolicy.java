@@ -0,0 +1,20 @@
+package com.palyaeva.store;
+
+/**
+ * What happens to employees of deleted manager.
+ * Employees are left without manager only if no other manager has the same first and last name.
+ */
+public enum ReportsPolicy {
+    /**
+     * Manager with employees is not deleted
+     */
+    BLOCK,
+    /**
+     * Employees are deleted together with their manager
+     */
+    CASCADE,
+    /**
+     * Employees are moved to another manager
+     */
+    REASSIGN
+}
@@ -0,0 +1,73 @@
+package com.palyaeva.store;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of strings: every distinct string is kept once and is referred by its number.
+ * Names, departments and managers repeat in thousands of notes,
+ * so columns of numbers take much less memory than the strings themselves.
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> ids;
+    private String[] strings;
+    private int size;
+
+    StringDictionary() {
+        this(new HashMap<>(), new String[16], 0);
+    }
+
+    private StringDictionary(Map<String, Integer> ids, String[] strings, int size) {
+        this.ids = ids;
+        this.strings = strings;
+        this.size = size;
+    }
+
+    /**
+     * Copies strings without their numbers, so the copy can only give strings by number
+     *
+     * @return read-only copy of dictionary
+     */
+    StringDictionary copy() {
+        return new StringDictionary(Collections.emptyMap(), Arrays.copyOf(strings, size), size);
+    }
+
+    /**
+     * Returns number of string, adding it to dictionary if it is new
+     *
+     * @param string string
+     * @return number of string
+     */
+    int idOf(String string) {
+        Integer id = ids.get(string);
+        if (id != null) {
+            return id;
+        }
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size << 1);
+        }
+        strings[size] = string;
+        ids.put(string, size);
+        return size++;
+    }
+
+    /**
+     * @param string string
+     * @return number of string or -1 if it is not in dictionary
+     */
+    int find(String string) {
+        Integer id = ids.get(string);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id number of string
+     * @return the same instance of string for all notes
+     */
+    String get(int id) {
+        return strings[id];
+    }
+}
@@ -1,6 +1,7 @@
 package com.palyaeva.validation;
 
 import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerLookup;
 
 import java.util.List;
 
@@ -9,6 +10,11 @@ import java.util.List;
  * {@link com.palyaeva.entity.Manager}
  * and
  * {@link com.palyaeva.entity.Employee}
+ * <p>
+ * Every field can be validated in two ways:
+ * {@code validate...} methods throw {@link ValidationException} and are used for user input,
+ * {@code check...} methods return broken rule instead of throwing exception
+ * and are used for bulk loading of records.
  */
 public interface PersonValidator {
 
@@ -46,6 +52,15 @@ public interface PersonValidator {
      */
     void validateManager(String managerName, List<Person> personList) throws ValidationException;
 
+    /**
+     * Checks if employee's manager exists using directory of managers
+     *
+     * @param managerName manager's first and last name
+     * @param managers    directory of all managers
+     * @throws ValidationException if manager is not found
+     */
+    void validateManager(String managerName, ManagerLookup managers) throws ValidationException;
+
     /**
      * Validates manager's department
      *
@@ -53,4 +68,53 @@ public interface PersonValidator {
      * @throws ValidationException if department is incorrect
      */
     void validateDepartment(String department) throws ValidationException;
+
+    /**
+     * Checks first name or last name
+     *
+     * @param name name of person
+     * @return broken rule or null if name is correct
+     */
+    ValidationError checkName(String name);
+
+    /**
+     * Checks year of birth
+     *
+     * @param year year of birth
+     * @return broken rule or null if year is correct
+     */
+    ValidationError checkBirthYear(String year);
+
+    /**
+     * Checks year of birth
+     *
+     * @param year year of birth
+     * @return broken rule or null if year is correct
+     */
+    ValidationError checkBirthYear(int year);
+
+    /**
+     * Checks phone number
+     *
+     * @param number phone number
+     * @return broken rule or null if phone number is correct
+     */
+    ValidationError checkPhoneNumber(String number);
+
+    /**
+     * Checks if employee's manager exists
+     *
+     * @param managerName manager's first and last name
+     * @param managers    directory of all managers
+     * @return broken rule or null if manager is found
+     */
+    ValidationError checkManager(String managerName, ManagerLookup managers);
+
+    /**
+     * Checks manager's department
+     *
+     * @param department manager's department
+     * @return broken rule or null if department is correct
+     */
+    ValidationError checkDepartment(String department);
 }
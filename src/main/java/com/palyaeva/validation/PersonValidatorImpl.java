@@ -2,13 +2,26 @@ package com.palyaeva.validation;
 
 import com.palyaeva.entity.Manager;
 import com.palyaeva.entity.Person;
+import com.palyaeva.index.ManagerDirectory;
+import com.palyaeva.index.ManagerLookup;
+import com.palyaeva.index.PhoneIndex;
 
 import java.util.List;
 
 /**
- * Default implementation of {@link PersonValidator}
+ * Default implementation of {@link PersonValidator}.
+ * Fields are checked by scanning their characters,
+ * so validation doesn't create regular expressions, streams or exceptions
+ * unless a {@code validate...} method fails.
  */
 public class PersonValidatorImpl implements PersonValidator {
+
+    private static final int MIN_NAME_LENGTH = 2;
+    private static final int MAX_NAME_LENGTH = 11;
+
+    private static final int MIN_BIRTH_YEAR = 1900;
+    private static final int MAX_BIRTH_YEAR = 2002;
+
     /**
      * Validates first name and last name
      * Valid name is longer then 1 letter and shorter than 12 letters
@@ -20,19 +33,9 @@ public class PersonValidatorImpl implements PersonValidator {
      */
     @Override
     public void validateName(String name, String nameType) throws ValidationException {
-        if (name == null) {
-            throw new ValidationException("No such child. " + nameType + " is NULL");
-        } else {
-
-            boolean isValid = name.chars().allMatch(Character::isLetter) &&
-                    name.length() >= 2 && name.length() <= 11;
-
-            if (!isValid) {
-                throw new ValidationException(nameType +
-                        " should not contain non-letter symbols," +
-                        " and should be longer than 1 " +
-                        " and shorter than 12 letters");
-            }
+        ValidationError error = checkName(name);
+        if (error != null) {
+            throw new ValidationException(error, error.getMessage(nameType));
         }
     }
 
@@ -44,18 +47,7 @@ public class PersonValidatorImpl implements PersonValidator {
      */
     @Override
     public void validateBirthYear(String birthYear) throws ValidationException {
-        if (birthYear == null) {
-            throw new ValidationException("No such child. Birth year is NULL");
-        } else {
-            try {
-                int year = Integer.parseInt(birthYear);
-                if (year < 1900 || year > 2002) {
-                    throw new ValidationException("Invalid year of birth");
-                }
-            } catch (NumberFormatException nfe) {
-                throw new ValidationException("Invalid year of birth");
-            }
-        }
+        throwIfInvalid(checkBirthYear(birthYear));
     }
 
     /**
@@ -67,14 +59,7 @@ public class PersonValidatorImpl implements PersonValidator {
      */
     @Override
     public void validatePhoneNumber(String number) throws ValidationException {
-        if (number == null) {
-            throw new ValidationException("No such child. Phone number is NULL");
-        } else {
-            boolean isValid = number.matches("^((\\+7|7|8)([0-9]){10})$");
-            if (!isValid) {
-                throw new ValidationException("Invalid phone number");
-            }
-        }
+        throwIfInvalid(checkPhoneNumber(number));
     }
 
     /**
@@ -86,32 +71,33 @@ public class PersonValidatorImpl implements PersonValidator {
      */
     @Override
     public void validateManager(String managerName, List<Person> persons) throws ValidationException {
-        if (managerName == null) {
-            throw new ValidationException("No such child. Manager is NULL");
-        } else {
-            boolean isFound = false;
-
-            String[] fullName = managerName.split("\\s+");
-            if (fullName.length != 2) {
-                throw new ValidationException("Invalid manager full name - " +
-                        "should contain first name and last name of existing manager.");
-            } else {
-                String firstName = fullName[0];
-                String lastName = fullName[1];
-
-                for (Person person : persons) {
-                    if (person instanceof Manager
-                            && person.getFirstName().equals(firstName)
-                            && person.getLastName().equals(lastName)) {
-                        isFound = true;
-                        break;
-                    }
-                }
-                if (!isFound) {
-                    throw new ValidationException("Manager not found!");
+        ValidationError error = ValidationError.MANAGER_MISSING;
+        if (managerName != null) {
+            String[] fullName = ManagerDirectory.splitFullName(managerName);
+            error = fullName == null ? ValidationError.MANAGER_NAME_INVALID : ValidationError.MANAGER_NOT_FOUND;
+            for (int i = 0; fullName != null && i < persons.size(); i++) {
+                Person person = persons.get(i);
+                if (person instanceof Manager
+                        && person.getFirstName().equals(fullName[0])
+                        && person.getLastName().equals(fullName[1])) {
+                    return;
                 }
             }
         }
+        throwIfInvalid(error);
+    }
+
+    /**
+     * Checks if manager with given full name exists.
+     * Lookup in directory takes constant time.
+     *
+     * @param managerName manager's first and last name
+     * @param managers    directory of all managers
+     * @throws ValidationException if manager is not found
+     */
+    @Override
+    public void validateManager(String managerName, ManagerLookup managers) throws ValidationException {
+        throwIfInvalid(checkManager(managerName, managers));
     }
 
     /**
@@ -122,13 +108,133 @@ public class PersonValidatorImpl implements PersonValidator {
      */
     @Override
     public void validateDepartment(String department) throws ValidationException {
+        throwIfInvalid(checkDepartment(department));
+    }
+
+    private static void throwIfInvalid(ValidationError error) throws ValidationException {
+        if (error != null) {
+            throw new ValidationException(error, error.getMessage());
+        }
+    }
+
+    /**
+     * Valid name is longer then 1 letter and shorter than 12 letters
+     * and contains only letters
+     */
+    @Override
+    public ValidationError checkName(String name) {
+        if (name == null) {
+            return ValidationError.NAME_MISSING;
+        }
+        int length = name.length();
+        if (length < MIN_NAME_LENGTH || length > MAX_NAME_LENGTH) {
+            return ValidationError.NAME_INVALID;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!Character.isLetter(name.charAt(i))) {
+                return ValidationError.NAME_INVALID;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Valid year is a number >= 1900 and <= 2002
+     */
+    @Override
+    public ValidationError checkBirthYear(String birthYear) {
+        if (birthYear == null) {
+            return ValidationError.BIRTH_YEAR_MISSING;
+        }
+        int length = birthYear.length();
+        // the same signs as Integer.parseInt accepts
+        int start = length > 0 && (birthYear.charAt(0) == '+' || birthYear.charAt(0) == '-') ? 1 : 0;
+        if (length == start) {
+            return ValidationError.BIRTH_YEAR_INVALID;
+        }
+        int year = 0;
+        for (int i = start; i < length; i++) {
+            char digit = birthYear.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return ValidationError.BIRTH_YEAR_INVALID;
+            }
+            // long numbers are out of range anyway, so they are not accumulated further
+            if (year <= MAX_BIRTH_YEAR) {
+                year = year * 10 + (digit - '0');
+            }
+        }
+        if (birthYear.charAt(0) == '-') {
+            year = -year;
+        }
+        return checkBirthYear(year);
+    }
+
+    @Override
+    public ValidationError checkBirthYear(int birthYear) {
+        if (birthYear < MIN_BIRTH_YEAR || birthYear > MAX_BIRTH_YEAR) {
+            return ValidationError.BIRTH_YEAR_INVALID;
+        }
+        return null;
+    }
+
+    /**
+     * Valid phone number begins with +7/7/8 and contains 10 digits after that
+     */
+    @Override
+    public ValidationError checkPhoneNumber(String number) {
+        if (number == null) {
+            return ValidationError.PHONE_NUMBER_MISSING;
+        }
+        if (PhoneIndex.normalize(number) < 0) {
+            return ValidationError.PHONE_NUMBER_INVALID;
+        }
+        return null;
+    }
+
+    @Override
+    public ValidationError checkManager(String managerName, ManagerLookup managers) {
+        if (managerName == null) {
+            return ValidationError.MANAGER_MISSING;
+        }
+        String[] fullName = ManagerDirectory.splitFullName(managerName);
+        if (fullName == null) {
+            return ValidationError.MANAGER_NAME_INVALID;
+        }
+        if (!managers.contains(fullName[0], fullName[1])) {
+            return ValidationError.MANAGER_NOT_FOUND;
+        }
+        return null;
+    }
+
+    /**
+     * Valid department name contains latin letters and can end with one whitespace
+     */
+    @Override
+    public ValidationError checkDepartment(String department) {
         if (department == null) {
-            throw new ValidationException("No such child. department is NULL.");
-        } else {
-            boolean isValid = department.matches("[A-Za-z]+\\s?");
-            if (!isValid) {
-                throw new ValidationException("Invalid department name");
+            return ValidationError.DEPARTMENT_MISSING;
+        }
+        int length = department.length();
+        if (length > 1 && isWhitespace(department.charAt(length - 1))) {
+            length--;
+        }
+        if (length == 0) {
+            return ValidationError.DEPARTMENT_INVALID;
+        }
+        for (int i = 0; i < length; i++) {
+            char letter = department.charAt(i);
+            if (!(letter >= 'A' && letter <= 'Z' || letter >= 'a' && letter <= 'z')) {
+                return ValidationError.DEPARTMENT_INVALID;
             }
         }
+        return null;
+    }
+
+    /*
+     * Whitespace characters of regular expressions (\s)
+     */
+    private static boolean isWhitespace(char symbol) {
+        return symbol == ' ' || symbol == '\t' || symbol == '\n'
+                || symbol == '\u000B' || symbol == '\f' || symbol == '\r';
     }
 }
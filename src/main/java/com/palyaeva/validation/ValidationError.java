@@ -0,0 +1,54 @@
+package com.palyaeva.validation;
+
+/**
+ * Validation rules which can be broken by a field of person.
+ * Returned by check methods of {@link PersonValidator},
+ * so failed validation doesn't need an exception.
+ */
+public enum ValidationError {
+    NAME_MISSING("No such child. ", " is NULL"),
+    NAME_INVALID("", " should not contain non-letter symbols," +
+            " and should be longer than 1 " +
+            " and shorter than 12 letters"),
+    BIRTH_YEAR_MISSING("No such child. Birth year is NULL"),
+    BIRTH_YEAR_INVALID("Invalid year of birth"),
+    PHONE_NUMBER_MISSING("No such child. Phone number is NULL"),
+    PHONE_NUMBER_INVALID("Invalid phone number"),
+    MANAGER_MISSING("No such child. Manager is NULL"),
+    MANAGER_NAME_INVALID("Invalid manager full name - " +
+            "should contain first name and last name of existing manager."),
+    MANAGER_NOT_FOUND("Manager not found!"),
+    MANAGER_HAS_EMPLOYEES("Manager has employees, they should be deleted or moved to another manager"),
+    DEPARTMENT_MISSING("No such child. department is NULL."),
+    DEPARTMENT_INVALID("Invalid department name");
+
+    private final String prefix;
+    private final String suffix;
+
+    ValidationError(String message) {
+        this(message, null);
+    }
+
+    /*
+     * Messages about names contain type of name between prefix and suffix
+     */
+    ValidationError(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * @return message for user
+     */
+    public String getMessage() {
+        return getMessage("Name");
+    }
+
+    /**
+     * @param nameType "first name" or "last name", used only in messages about names
+     * @return message for user
+     */
+    public String getMessage(String nameType) {
+        return suffix == null ? prefix : prefix + nameType + suffix;
+    }
+}
@@ -2,12 +2,26 @@ package com.palyaeva.validation;
 
 /**
  * Exception that is thrown when input data or file is invalid.
- * Used in {@link PersonValidator}
+ * Used in {@link PersonValidator}.
+ * Exception only carries a message for user, so its stack trace is not filled.
  */
 public class ValidationException extends RuntimeException {
 
+    private final ValidationError error;
+
     public ValidationException(String message) {
-        super(message);
+        this(null, message);
+    }
+
+    public ValidationException(ValidationError error, String message) {
+        super(message, null, false, false);
+        this.error = error;
     }
 
+    /**
+     * @return broken validation rule or null if it is unknown
+     */
+    public ValidationError getError() {
+        return error;
+    }
 }